@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.example.airline.repository.FlightRepository;
 
 @SpringBootApplication
+@EnableScheduling
 public class AirlineApplication {
     public static void main(String[] args) {
         SpringApplication.run(AirlineApplication.class, args);
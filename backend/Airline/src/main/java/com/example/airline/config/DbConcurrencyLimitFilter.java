@@ -0,0 +1,87 @@
+package com.example.airline.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many API requests run at once (airline.db-concurrency.limit, 0 = off).
+ * With virtual threads Tomcat no longer bounds concurrency, so without this every request
+ * would queue inside Hikari and fail on its connection timeout. Waiting here costs only a
+ * parked virtual thread. SSE streams are long-lived and never take a permit; other async
+ * responses hold theirs until they complete. Holds take theirs in BookingController after
+ * flight admission, so the admission wait holds no permit.
+ */
+@Component
+public class DbConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final DbConcurrencyLimiter limiter;
+
+    public DbConcurrencyLimitFilter(DbConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !limiter.isEnabled() || !uri.startsWith("/api/") || uri.endsWith("/stream")
+                || ("POST".equals(request.getMethod()) && uri.equals("/api/book/hold"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.acquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            // an async body (the streamed flight listing) keeps its connection until it completes
+            if (async) request.getAsyncContext().addListener(new ReleaseOnCompletion(limiter));
+            else limiter.release();
+        }
+    }
+
+    private static final class ReleaseOnCompletion implements AsyncListener {
+        private final DbConcurrencyLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnCompletion(DbConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        // complete always follows timeout and error, but release at the first of them
+        private void release() {
+            if (released.compareAndSet(false, true)) limiter.release();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) { release(); }
+
+        @Override
+        public void onTimeout(AsyncEvent event) { release(); }
+
+        @Override
+        public void onError(AsyncEvent event) { release(); }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // a new async cycle drops the listeners; stay registered
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.airline.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The permits behind airline.db-concurrency.limit (0 = off). DbConcurrencyLimitFilter takes one
+ * for most API requests; a hold takes its own only after flight admission let it in, so holds
+ * queued behind one hot flight never sit on permits the rest of the API needs.
+ */
+@Component
+public class DbConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final long waitMs;
+
+    public DbConcurrencyLimiter(@Value("${airline.db-concurrency.limit:0}") int limit,
+                                @Value("${airline.db-concurrency.wait-ms:2000}") long waitMs) {
+        this.permits = limit > 0 ? new Semaphore(limit, true) : null;
+        this.waitMs = waitMs;
+    }
+
+    public boolean isEnabled() { return permits != null; }
+
+    /** Waits up to airline.db-concurrency.wait-ms; false means answer 503. Always true when off. */
+    public boolean acquire() {
+        if (permits == null) return true;
+        try {
+            return permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        if (permits != null) permits.release();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.airline.config;
+
+/**
+ * Per-thread permission for read-only transactions to run on the read replica
+ * (see {@link ReplicaRoutingDataSource}). Off unless a caller turns it on; {@link ReplicaReadFilter}
+ * turns it on for replica-eligible requests. Whatever must see the latest committed state, even
+ * inside such a request, turns it off around its read.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ReadRouting() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return REPLICA_ALLOWED.get();
+    }
+
+    /**
+     * Set the permission for this thread and return the previous one, to be restored in a finally block.
+     */
+    public static boolean allowReplica(boolean allowed) {
+        boolean previous = REPLICA_ALLOWED.get();
+        if (allowed) REPLICA_ALLOWED.set(Boolean.TRUE);
+        else REPLICA_ALLOWED.remove();
+        return previous;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.airline.config;
+
+import com.example.airline.service.BookingMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read replica routing (airline.replica.enabled=true). The application DataSource becomes a
+ * {@link ReplicaRoutingDataSource} over two Hikari pools: the primary from spring.datasource.*
+ * and the replica from airline.replica.*. It sits behind a LazyConnectionDataSourceProxy, so a
+ * transaction only takes a pooled connection at its first statement and by then it is known
+ * whether the transaction is read-only.
+ *
+ * Without the property nothing here exists and Boot's single pool is used as before.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "airline.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    // user and password default to the primary's
+    @Bean(defaultCandidate = false)
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${airline.replica.url}") String url,
+                                              @Value("${airline.replica.username:}") String username,
+                                              @Value("${airline.replica.password:}") String password,
+                                              @Value("${airline.replica.maximum-pool-size:20}") int poolSize) {
+        HikariDataSource ds = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        ds.setPoolName("replica");
+        ds.setMaximumPoolSize(poolSize);
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${airline.replica.max-lag-ms:1000}") long maxLagMillis,
+                                               BookingMetrics metrics) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(new JdbcTemplate(primary), new JdbcTemplate(replica),
+                maxLagMillis, System::currentTimeMillis);
+        metrics.replicaLag(() -> {
+            long lag = monitor.lagMillis();
+            return lag == Long.MAX_VALUE ? Double.NaN : lag;
+        });
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lag,
+                                 BookingMetrics metrics) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lag, metrics));
+    }
+}
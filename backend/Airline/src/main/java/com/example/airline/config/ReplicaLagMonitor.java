@@ -0,0 +1,79 @@
+package com.example.airline.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures how far the read replica is behind with a heartbeat row: every
+ * airline.replica.heartbeat-interval-ms the primary's replica_heartbeat row gets the current time,
+ * and the replica's copy of that row says when the newest write it has applied was made.
+ *
+ * The replica counts as fresh while that write is at most airline.replica.max-lag-ms old, so a
+ * stalled replica, a missing heartbeat row or a failing replica turns reads back to the primary
+ * within max-lag-ms. max-lag-ms has to be larger than the heartbeat interval. Lag is measured on
+ * this node's clock; with several nodes each one compares against whichever node beat last.
+ */
+public class ReplicaLagMonitor {
+
+    static final String TABLE_DDL =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final LongSupplier clock;
+
+    // newest heartbeat seen on the replica (primary clock); 0 = none yet
+    private volatile long replicatedBeat;
+    private volatile boolean tableReady;
+
+    public ReplicaLagMonitor(JdbcTemplate primary, JdbcTemplate replica, long maxLagMillis, LongSupplier clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.clock = clock;
+    }
+
+    public boolean isFresh() {
+        return replicatedBeat > 0 && lagMillis() <= maxLagMillis;
+    }
+
+    /**
+     * Fresh, and has replicated a heartbeat written after the given time (this monitor's clock),
+     * so it also has whatever the primary committed by then.
+     */
+    public boolean hasCaughtUpTo(long millis) {
+        return isFresh() && replicatedBeat > millis;
+    }
+
+    // age of the newest write the replica is known to have; Long.MAX_VALUE before the first one
+    public long lagMillis() {
+        long beat = replicatedBeat;
+        return beat == 0 ? Long.MAX_VALUE : Math.max(0, clock.getAsLong() - beat);
+    }
+
+    @Scheduled(fixedDelayString = "${airline.replica.heartbeat-interval-ms:200}")
+    public void beat() {
+        try {
+            if (!tableReady) {
+                primary.execute(TABLE_DDL);
+                tableReady = true;
+            }
+            long now = clock.getAsLong();
+            if (primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (RuntimeException ex) {
+            System.out.println("Replica heartbeat: primary write failed: " + ex.getMessage());
+        }
+        try {
+            List<Long> seen = replica.queryForList("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            if (!seen.isEmpty() && seen.get(0) != null) replicatedBeat = seen.get(0);
+        } catch (RuntimeException ex) {
+            // replica down or table not replicated yet: replicatedBeat ages out and reads go to the primary
+        }
+    }
+}
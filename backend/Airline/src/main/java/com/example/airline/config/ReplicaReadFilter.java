@@ -0,0 +1,86 @@
+package com.example.airline.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Decides per request whether its read-only transactions may use the read replica
+ * (airline.replica.enabled=true). Only flight reads qualify: search, listings and seat maps
+ * under GET /api/flights, minus the SSE stream and the ticket export.
+ *
+ * Read-your-writes: a hold or a payment confirmation sets a cookie that pins the client's reads
+ * to the primary for airline.replica.read-your-writes-ms, so a client never sees its own seats as
+ * free on a replica that has not caught up. It is set before the write runs, so it also covers a
+ * write that commits after its response was lost. The client is cross-origin, so it has to send
+ * credentials for the cookie to be kept. Seat maps do not rely on it: they only use a replica that
+ * has caught up with the flight's last change (SeatMapService.readCurrent).
+ */
+@Component
+@ConditionalOnProperty(name = "airline.replica.enabled", havingValue = "true")
+public class ReplicaReadFilter extends OncePerRequestFilter {
+
+    static final String PIN_COOKIE = "airline-primary-until";
+
+    private final long pinMillis;
+
+    public ReplicaReadFilter(@Value("${airline.replica.read-your-writes-ms:5000}") long pinMillis) {
+        this.pinMillis = pinMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String uri = request.getRequestURI();
+        long now = System.currentTimeMillis();
+        if ("POST".equals(request.getMethod()) && (uri.equals("/api/book/hold") || uri.equals("/api/payment/confirm"))) {
+            Cookie pin = new Cookie(PIN_COOKIE, Long.toString(now + pinMillis));
+            pin.setPath("/api");
+            pin.setHttpOnly(true);
+            pin.setMaxAge((int) Math.max(1, pinMillis / 1000 + 1));
+            response.addCookie(pin);
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean replica = "GET".equals(request.getMethod()) && uri.startsWith("/api/flights")
+                && !uri.endsWith("/stream") && !uri.endsWith("/tickets")
+                && pinnedUntil(request) <= now;
+        if (!replica) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean previous = ReadRouting.allowReplica(true);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.allowReplica(previous);
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return 0;
+        for (Cookie c : cookies) {
+            if (!PIN_COOKIE.equals(c.getName())) continue;
+            try {
+                return Long.parseLong(c.getValue());
+            } catch (NumberFormatException ex) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.airline.config;
+
+import com.example.airline.service.BookingMetrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Picks the primary or the read replica pool when a connection is needed. The replica serves a
+ * connection only when all of these hold:
+ *
+ *  - the transaction is read-only
+ *  - the thread is allowed to read from the replica ({@link ReadRouting})
+ *  - the replica is within its staleness limit ({@link ReplicaLagMonitor})
+ *
+ * Everything else, including every write and all work outside a transaction, uses the primary.
+ * Used behind a LazyConnectionDataSourceProxy, so the decision is taken at the first statement,
+ * once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lag;
+    private final BookingMetrics metrics;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lag, BookingMetrics metrics) {
+        this.lag = lag;
+        this.metrics = metrics;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadRouting.isReplicaAllowed() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        String target = lag.isFresh() ? REPLICA : PRIMARY;
+        if (metrics != null) metrics.replicaRead(target);
+        return target;
+    }
+}
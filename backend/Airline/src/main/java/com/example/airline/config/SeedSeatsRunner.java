@@ -1,62 +1,123 @@
 package com.example.airline.config;
 
 import com.example.airline.entity.Flight;
-import com.example.airline.entity.Seat;
 import com.example.airline.entity.SeatClass;
 import com.example.airline.entity.SeatStatus;
 import com.example.airline.repository.FlightRepository;
-import com.example.airline.repository.SeatRepository;
+import com.example.airline.service.SeatCountService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Creates the seat rows of every flight that has none yet.
+ * One anti-join finds those flights; airline.seeding.parallelism workers then generate their
+ * seats and write each flight in its own transaction as multi-row INSERTs of up to
+ * airline.seeding.batch-rows rows, so a flight is seeded completely or not at all. With
+ * airline.seeding.background=true startup does not wait: the app takes traffic while seeding
+ * runs, and a flight's seats become bookable as soon as its transaction commits.
+ */
 @Component
 public class SeedSeatsRunner implements CommandLineRunner {
 
+    private static final int COLS = 6;
+    private static final String INSERT = "INSERT INTO seats (flight_id, seat_label, seat_row, seat_col, seat_class, status) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+
     private final FlightRepository flightRepo;
-    private final SeatRepository seatRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SeatCountService seatCounts;
+    private final TaskExecutor workers;
+    private final int parallelism;
+    private final int batchRows;
+    private final boolean background;
 
-    public SeedSeatsRunner(FlightRepository flightRepo, SeatRepository seatRepo) {
+    public SeedSeatsRunner(FlightRepository flightRepo,
+                           JdbcTemplate jdbc,
+                           TransactionTemplate tx,
+                           SeatCountService seatCounts,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor workers,
+                           @Value("${airline.seeding.parallelism:4}") int parallelism,
+                           @Value("${airline.seeding.batch-rows:500}") int batchRows,
+                           @Value("${airline.seeding.background:false}") boolean background) {
         this.flightRepo = flightRepo;
-        this.seatRepo = seatRepo;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.seatCounts = seatCounts;
+        this.workers = workers;
+        this.parallelism = Math.max(1, parallelism);
+        this.batchRows = Math.max(1, batchRows);
+        this.background = background;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        List<Flight> flights = flightRepo.findAll();
-        for (Flight f : flights) {
-            long cnt = seatRepo.findByFlightIdOrderBySeatRowAscSeatColAsc(f.getId().longValue()).size();
-            if (cnt > 0) continue; // skip if seats already exist
-
-            int seatsTotal = f.getSeatsTotal() == null ? 30 : f.getSeatsTotal(); // fallback
-            int cols = 6;
-            int rows = (int) Math.ceil(seatsTotal / (double) cols);
-
-            List<Seat> toSave = new ArrayList<>(rows * cols);
-            for (int r = 1; r <= rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    Seat s = new Seat();
-                    s.setFlightId(f.getId().longValue());
-                    char colChar = (char) ('A' + c);
-                    String label = r + String.valueOf(colChar);
-                    s.setSeatLabel(label);
-                    s.setSeatRow(r);
-                    s.setSeatCol(String.valueOf(colChar));
-                    if (r <= 2) s.setSeatClass(SeatClass.FIRST);
-                    else if (r <= 4) s.setSeatClass(SeatClass.BUSINESS);
-                    else s.setSeatClass(SeatClass.ECONOMY);
-                    s.setStatus(SeatStatus.AVAILABLE);
-                    toSave.add(s);
+        if (background) {
+            workers.execute(this::seedAll);
+        } else {
+            seedAll();
+        }
+    }
+
+    private void seedAll() {
+        long t0 = System.nanoTime();
+        ConcurrentLinkedQueue<Flight> todo = new ConcurrentLinkedQueue<>(flightRepo.findWithoutSeats());
+        if (todo.isEmpty()) return;
+        int flights = todo.size();
+        List<Long> seeded = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, flights); i++) {
+            running.add(CompletableFuture.runAsync(() -> {
+                Flight f;
+                while ((f = todo.poll()) != null) {
+                    seed(f);
+                    seeded.add(f.getId().longValue());
                 }
+            }, workers));
+        }
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        } finally {
+            // per-class counters and seats_available for whatever got seeded
+            seatCounts.recount(new ArrayList<>(seeded));
+        }
+        System.out.println("Created seats for " + seeded.size() + " of " + flights + " flights in "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms");
+    }
+
+    private void seed(Flight f) {
+        int seatsTotal = f.getSeatsTotal() == null ? 30 : f.getSeatsTotal(); // fallback
+        int rows = (int) Math.ceil(seatsTotal / (double) COLS);
+        long flightId = f.getId().longValue();
+
+        List<Object> args = new ArrayList<>(rows * COLS * 6);
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 0; c < COLS; c++) {
+                String col = String.valueOf((char) ('A' + c));
+                SeatClass seatClass = r <= 2 ? SeatClass.FIRST : r <= 4 ? SeatClass.BUSINESS : SeatClass.ECONOMY;
+                Collections.addAll(args, flightId, r + col, r, col, seatClass.name(), SeatStatus.AVAILABLE.name());
             }
-            seatRepo.saveAll(toSave);
+        }
+        tx.executeWithoutResult(status -> insertRows(args, rows * COLS));
+    }
 
-            // update flight summary
-            f.setSeatsAvailable((int) toSave.size());
-            flightRepo.save(f);
-            System.out.println("Created " + toSave.size() + " seats for flight " + f.getId());
+    // one multi-row INSERT per chunk; full chunks share one statement text
+    private void insertRows(List<Object> args, int seats) {
+        for (int from = 0; from < seats; from += batchRows) {
+            int n = Math.min(batchRows, seats - from);
+            String sql = INSERT + String.join(", ", Collections.nCopies(n, ROW));
+            jdbc.update(sql, args.subList(from * 6, (from + n) * 6).toArray());
         }
     }
 }
@@ -1,16 +1,37 @@
 package com.example.airline.controller;
 
-import com.example.airline.entity.Seat;
+import com.example.airline.config.DbConcurrencyLimiter;
+import com.example.airline.entity.SeatClass;
+import com.example.airline.repository.SeatView;
+import com.example.airline.service.BookingPartitions;
 import com.example.airline.service.BookingService;
+import com.example.airline.service.ConfirmationPipeline;
+import com.example.airline.service.FlightAdmission;
+import com.example.airline.service.IdempotencyStore;
+import com.example.airline.service.SeatConflictException;
+import com.example.airline.service.SeatEventHub;
+import com.example.airline.service.SeatMapService;
 import com.example.airline.service.TicketService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -21,41 +42,142 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final TicketService ticketService;
+    private final SeatMapService seatMapService;
+    private final SeatEventHub seatEventHub;
+    private final IdempotencyStore idempotency;
+    private final ConfirmationPipeline confirmations;
+    private final FlightAdmission admission;
+    private final BookingPartitions partitions;
+    private final DbConcurrencyLimiter dbLimit;
 
-    public BookingController(BookingService bookingService, TicketService ticketService) {
+    public BookingController(BookingService bookingService,
+                             TicketService ticketService,
+                             SeatMapService seatMapService,
+                             SeatEventHub seatEventHub,
+                             IdempotencyStore idempotency,
+                             ConfirmationPipeline confirmations,
+                             FlightAdmission admission,
+                             BookingPartitions partitions,
+                             DbConcurrencyLimiter dbLimit) {
         this.bookingService = bookingService;
         this.ticketService = ticketService;
+        this.seatMapService = seatMapService;
+        this.seatEventHub = seatEventHub;
+        this.idempotency = idempotency;
+        this.confirmations = confirmations;
+        this.admission = admission;
+        this.partitions = partitions;
+        this.dbLimit = dbLimit;
     }
 
     // ---------------------------------------------------
     // 1) GET SEAT MAP FOR A FLIGHT
     // ---------------------------------------------------
     @GetMapping("/flights/{flightId}/seats")
-    public ResponseEntity<List<Seat>> getSeats(@PathVariable Integer flightId) {
-        List<Seat> seats = bookingService.getSeatsForFlight(flightId);
-        return ResponseEntity.ok(seats);
+    public ResponseEntity<List<SeatView>> getSeats(@PathVariable Integer flightId, WebRequest request) {
+        // unchanged since the client's copy -> 304 without touching the seats table
+        String etag = seatMapService.etag(flightId.longValue());
+        if (request.checkNotModified(etag)) return null;
+        List<SeatView> seats = seatMapService.readCurrent(flightId.longValue(),
+                () -> bookingService.getSeatsForFlight(flightId));
+        return ResponseEntity.ok().eTag(etag).body(seats);
+    }
+
+    // compact seat map, part 1: static layout (labels, rows, cols, classes), fetched once per flight
+    @GetMapping("/flights/{flightId}/seats/layout")
+    public ResponseEntity<SeatMapService.SeatLayout> getSeatLayout(@PathVariable Integer flightId, WebRequest request) {
+        String etag = seatMapService.layoutEtag(flightId.longValue());
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).body(seatMapService.layout(flightId.longValue()));
+    }
+
+    // compact seat map, part 2: 2-bit status bitmap in layout order, 304 while the version is unchanged
+    @GetMapping("/flights/{flightId}/seats/status")
+    public ResponseEntity<SeatMapService.SeatStatusBitmap> getSeatStatus(@PathVariable Integer flightId, WebRequest request) {
+        String etag = seatMapService.etag(flightId.longValue());
+        if (request.checkNotModified(etag)) return null;
+        SeatMapService.SeatStatusBitmap bitmap = seatMapService.readCurrent(flightId.longValue(),
+                () -> seatMapService.statusBitmap(flightId.longValue()));
+        return ResponseEntity.ok().eTag(etag).body(bitmap);
+    }
+
+    // live seat status deltas (SSE): events "hello", "seats" {version, deltas[label, from, to]} and "resync"
+    @GetMapping(value = "/flights/{flightId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(@PathVariable Integer flightId) {
+        return seatEventHub.subscribe(flightId.longValue(), seatMapService.version(flightId.longValue()));
     }
 
     // ---------------------------------------------------
     // 2) HOLD SEATS (CREATES BOOKING WITH PENDING STATUS)
     // ---------------------------------------------------
+    // either seats, or count + seatClass to have the server pick adjacent seats
     public static class HoldRequest {
         public Integer userId;
         public Integer flightId;
         public List<String> seats;
+        public Integer count;
+        public SeatClass seatClass;
         public BigDecimal amount;
     }
 
+    // with an Idempotency-Key, a retry gets the first response instead of a second hold;
+    // admission runs first, so a 429 is never stored as the key's response; the db-concurrency
+    // permit is taken only once admitted (the filter skips this endpoint), so a flight's waiting
+    // room never holds permits the rest of the API needs
     @PostMapping("/book/hold")
-    public ResponseEntity<?> holdSeats(@RequestBody HoldRequest req) {
+    public ResponseEntity<?> holdSeats(@RequestBody HoldRequest req,
+                                       @RequestHeader(value = IdempotencyStore.HEADER, required = false) String key) {
 
-        if (req == null || req.userId == null || req.flightId == null || req.seats == null || req.seats.isEmpty()) {
+        if (req == null || req.userId == null || req.flightId == null || !(hasSeats(req) ^ isAutoAssign(req))) {
             return ResponseEntity.badRequest().body(Map.of("message", "Invalid request body"));
         }
+        FlightAdmission.Decision admitted = admission.admit(req.flightId.longValue());
+        if (!admitted.admitted()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(admitted.retryAfterSeconds()))
+                    .body(Map.of(
+                            "message", "Flight " + req.flightId + " is busy, retry later",
+                            "position", admitted.position(),
+                            "retryAfterSeconds", admitted.retryAfterSeconds()));
+        }
+        if (key != null && key.length() > MAX_KEY_LENGTH) return invalidKey();
+        if (!dbLimit.acquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        try {
+            if (key == null) return hold(req);
+            String fingerprint = req.userId + "|" + req.flightId + "|" + req.seats + "|" + req.count + "|" + req.seatClass
+                    + "|" + req.amount;
+            return idempotency.execute("hold:" + key, fingerprint, () -> hold(req));
+        } finally {
+            dbLimit.release();
+        }
+    }
+
+    private static boolean hasSeats(HoldRequest req) {
+        return req.seats != null && !req.seats.isEmpty();
+    }
+
+    private static boolean isAutoAssign(HoldRequest req) {
+        return req.count != null && req.count > 0 && req.seatClass != null;
+    }
 
+    private ResponseEntity<?> hold(HoldRequest req) {
         try {
-            BookingService.HoldResponse resp =
-                    bookingService.holdSeats(req.userId, req.flightId, req.seats, req.amount);
+            if (isAutoAssign(req)) {
+                BookingService.HoldResponse resp = partitions.execute(req.flightId, () ->
+                        bookingService.holdAutoAssigned(req.userId, req.flightId, req.seatClass, req.count, req.amount));
+                return ResponseEntity.ok(Map.of(
+                        "bookingId", resp.getBookingId(),
+                        "pnr", resp.getPnr(),
+                        "amount", resp.getAmount(),
+                        "expiresAt", resp.getExpiresAt(),
+                        "seats", resp.getSeats(),
+                        "together", resp.getTogether()
+                ));
+            }
+            BookingService.HoldResponse resp = partitions.execute(req.flightId, () ->
+                    bookingService.holdSeats(req.userId, req.flightId, req.seats, req.amount));
 
             return ResponseEntity.ok(Map.of(
                     "bookingId", resp.getBookingId(),
@@ -64,6 +186,11 @@ public class BookingController {
                     "expiresAt", resp.getExpiresAt()
             ));
 
+        } catch (SeatConflictException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "message", ex.getMessage(),
+                    "conflicts", ex.getConflicts()
+            ));
         } catch (IllegalStateException ex) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", ex.getMessage()));
         }
@@ -80,15 +207,26 @@ public class BookingController {
         public boolean success;
     }
 
+    // with an Idempotency-Key, a retry gets the first response instead of settling the payment again
     @PostMapping("/payment/confirm")
-    public ResponseEntity<?> confirmPayment(@RequestBody PaymentConfirmRequest req) {
+    public ResponseEntity<?> confirmPayment(@RequestBody PaymentConfirmRequest req,
+                                            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String key) {
         if (req == null || req.bookingId == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "Invalid request"));
         }
+        if (key == null) return confirm(req);
+        if (key.length() > MAX_KEY_LENGTH) return invalidKey();
+        return idempotency.execute("confirm:" + key, req.bookingId + "|" + req.success, () -> confirm(req));
+    }
 
+    private ResponseEntity<?> confirm(PaymentConfirmRequest req) {
         try {
             String txnRef = "MOCK-" + UUID.randomUUID().toString().substring(0, 8);
-            bookingService.confirmPayment(req.bookingId, req.success, txnRef);
+            if (partitions.isEnabled()) {
+                partitions.confirm(req.bookingId, req.success, txnRef);
+            } else {
+                confirmations.confirm(req.bookingId, req.success, txnRef);
+            }
             return ResponseEntity.ok(Map.of("success", req.success));
 
         } catch (Exception ex) {
@@ -96,26 +234,63 @@ public class BookingController {
         }
     }
 
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static ResponseEntity<?> invalidKey() {
+        return ResponseEntity.badRequest().body(Map.of("message",
+                IdempotencyStore.HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+    }
+
     // ---------------------------------------------------
     // 4) DOWNLOAD TICKET (PDF)
     // ---------------------------------------------------
+    // paid tickets come from the ticket store with an ETag and are sent without copying through the heap
     @GetMapping("/booking/{id}/ticket")
-    public ResponseEntity<byte[]> downloadTicket(@PathVariable Integer id) {
+    public void downloadTicket(@PathVariable Integer id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String disposition = ContentDisposition.attachment().filename("ticket_" + id + ".pdf").build().toString();
         try {
-            byte[] pdf = ticketService.generateTicketPdfForBooking(id);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDisposition(
-                    ContentDisposition.builder("attachment")
-                            .filename("ticket_" + id + ".pdf")
-                            .build()
-            );
-
-            return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
+            TicketService.TicketFile ticket = ticketService.storedTicket(id);
+            if (ticket == null) {
+                // not paid: nothing stored, render the current state
+                byte[] pdf = ticketService.generateTicketPdfForBooking(id);
+                response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+                response.setContentLength(pdf.length);
+                response.getOutputStream().write(pdf);
+                return;
+            }
+            if (new ServletWebRequest(request, response).checkNotModified(ticket.etag())) return;
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+            sendFile(ticket.path(), ticket.size(), request, response);
+        } catch (IllegalArgumentException ex) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+        }
+    }
 
-        } catch (Exception ex) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+    // Tomcat's sendfile when the connector offers it, otherwise FileChannel.transferTo into the response
+    private static void sendFile(Path path, long size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", path.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return;
         }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = 0;
+            while (pos < size) pos += file.transferTo(pos, size - pos, out);
+        }
+    }
+
+    // all paid tickets of a flight as one ZIP, streamed entry by entry
+    @GetMapping(value = "/flights/{flightId}/tickets", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportTickets(@PathVariable Integer flightId) {
+        StreamingResponseBody body = out -> ticketService.exportFlight(flightId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("tickets_flight_" + flightId + ".zip").build().toString())
+                .body(body);
     }
 }
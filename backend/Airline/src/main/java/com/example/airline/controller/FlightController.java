@@ -1,31 +1,87 @@
 package com.example.airline.controller;
 
-import com.example.airline.entity.Flight;
+import com.example.airline.config.ReadRouting;
 import com.example.airline.repository.FlightRepository;
+import com.example.airline.repository.FlightView;
+import com.example.airline.service.BookingMetrics;
+import com.example.airline.service.FlightListingService;
+import com.example.airline.service.FlightSearchIndex;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/flights")
 public class FlightController {
     private final FlightRepository repo;
-    public FlightController(FlightRepository repo) { this.repo = repo; }
+    private final FlightSearchIndex searchIndex;
+    private final FlightListingService listing;
+    private final BookingMetrics metrics;
 
+    public FlightController(FlightRepository repo, FlightSearchIndex searchIndex, FlightListingService listing,
+                            BookingMetrics metrics) {
+        this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.listing = listing;
+        this.metrics = metrics;
+    }
+
+    // full listing, streamed row by row from a JDBC cursor (same JSON array as before)
     @GetMapping
-    public List<Flight> all() {
-        return repo.findAll();
+    public ResponseEntity<StreamingResponseBody> all(@RequestParam(required = false) String origin,
+                                                     @RequestParam(required = false) String destination,
+                                                     @RequestParam(required = false) String from,
+                                                     @RequestParam(required = false) String to) {
+        LocalDateTime start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+        LocalDateTime end = to == null ? null : LocalDate.parse(to).plusDays(1).atStartOfDay();
+        // written on an async thread: carry over whether this request may read from the replica
+        boolean replica = ReadRouting.isReplicaAllowed();
+        StreamingResponseBody body = out -> {
+            boolean previous = ReadRouting.allowReplica(replica);
+            try {
+                listing.stream(out, origin, destination, start, end);
+            } finally {
+                ReadRouting.allowReplica(previous);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // keyset pagination: pass nextCursor back as `after`; from/to are inclusive yyyy-MM-dd dates
+    @GetMapping("/page")
+    public FlightListingService.FlightPage page(@RequestParam(required = false) Integer after,
+                                                @RequestParam(defaultValue = "50") int limit,
+                                                @RequestParam(required = false) String origin,
+                                                @RequestParam(required = false) String destination,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to) {
+        LocalDateTime start = from == null ? null : LocalDate.parse(from).atStartOfDay();
+        LocalDateTime end = to == null ? null : LocalDate.parse(to).plusDays(1).atStartOfDay();
+        return listing.page(after, limit, origin, destination, start, end);
     }
 
     @GetMapping("/search")
-    public List<Flight> search(@RequestParam String origin,
+    public List<FlightView> search(@RequestParam String origin,
                                @RequestParam String destination,
                                @RequestParam String date) {
         LocalDate d = LocalDate.parse(date); // yyyy-MM-dd
         LocalDateTime start = d.atStartOfDay();
         LocalDateTime end = d.atTime(23,59,59);
-        return repo.findByOriginAndDestinationAndDepartureBetween(origin, destination, start, end);
+        // served from the in-memory route index; the repository covers the window before it loads
+        long t0 = System.nanoTime();
+        List<FlightView> hits = searchIndex.search(origin, destination, start, end);
+        if (hits != null) {
+            metrics.search("index").record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            return hits;
+        }
+        hits = repo.findViews(origin, destination, start, end);
+        metrics.search("db").record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        return hits;
     }
 }
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "flights")
+@Table(name = "flights",
+        indexes = {@Index(name = "idx_flights_route_departure", columnList = "origin,destination,departure")})
 public class Flight {
 
     @Id
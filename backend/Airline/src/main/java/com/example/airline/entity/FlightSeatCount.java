@@ -0,0 +1,51 @@
+package com.example.airline.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Seat counters of one class on one flight, kept by SeatCountService.
+ * Only ever changed with atomic in-DB increments (or overwritten by a recount).
+ */
+@Entity
+@Table(name = "flight_seat_counts",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"flight_id","seat_class"})})
+public class FlightSeatCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flight_id", nullable = false)
+    private Long flightId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_class", nullable = false)
+    private SeatClass seatClass;
+
+    @Column(name = "seats_total", nullable = false)
+    private int seatsTotal;
+
+    @Column(name = "available", nullable = false)
+    private int available;
+
+    @Column(name = "held", nullable = false)
+    private int held;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+
+    // getters & setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getFlightId() { return flightId; }
+    public void setFlightId(Long flightId) { this.flightId = flightId; }
+    public SeatClass getSeatClass() { return seatClass; }
+    public void setSeatClass(SeatClass seatClass) { this.seatClass = seatClass; }
+    public int getSeatsTotal() { return seatsTotal; }
+    public void setSeatsTotal(int seatsTotal) { this.seatsTotal = seatsTotal; }
+    public int getAvailable() { return available; }
+    public void setAvailable(int available) { this.available = available; }
+    public int getHeld() { return held; }
+    public void setHeld(int held) { this.held = held; }
+    public int getBooked() { return booked; }
+    public void setBooked(int booked) { this.booked = booked; }
+}
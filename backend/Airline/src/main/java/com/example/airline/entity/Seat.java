@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "seats", uniqueConstraints = {@UniqueConstraint(columnNames = {"flight_id","seat_label"})})
+@Table(name = "seats",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"flight_id","seat_label"})},
+        indexes = {@Index(name = "idx_seats_status_expiry", columnList = "status,hold_expires_at")})
 public class Seat {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,7 +2,18 @@ package com.example.airline.repository;
 
 import com.example.airline.entity.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    // Add custom booking queries here later (by user, by flight, etc.)
+import java.util.List;
+
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingRepositoryCustom {
+
+    // ids only, for the flight ticket export
+    @Query("SELECT b.id FROM Booking b WHERE b.flight.id = :flightId AND b.paymentStatus = 'PAID' ORDER BY b.id")
+    List<Integer> findPaidIdsByFlightId(@Param("flightId") Integer flightId);
+
+    // flight of a booking (the foreign key, no join), null if there is no such booking
+    @Query("SELECT b.flight.id FROM Booking b WHERE b.id = :id")
+    Integer findFlightIdById(@Param("id") Integer id);
 }
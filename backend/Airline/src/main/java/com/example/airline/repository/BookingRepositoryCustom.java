@@ -0,0 +1,39 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.PaymentState;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface BookingRepositoryCustom {
+
+    // everything confirmPayment needs in one query; null if the booking does not exist
+    ConfirmView findConfirmView(Integer bookingId);
+
+    // confirm views of many bookings in one query, by booking id; missing bookings are left out
+    Map<Integer, ConfirmView> findConfirmViews(Collection<Integer> bookingIds);
+
+    // what goes on a ticket, in one query; null if the booking does not exist
+    TicketView findTicketView(Integer bookingId);
+
+    // set booking.payment_status and the booking's payment status/txn_ref without loading either
+    void settlePayment(Integer bookingId, String paymentStatus, PaymentState state, String txnRef);
+
+    // settlePayment for many bookings: one batched UPDATE of bookings, one of payments
+    void settlePayments(List<Settlement> settlements);
+
+    /* booking as seen by confirmPayment; paymentId is null when the payment row is missing */
+    record ConfirmView(Integer bookingId, String pnr, Integer userId, Long flightId, String flightNo,
+                       Long paymentId, List<String> seatLabels) {
+    }
+
+    /* outcome of one payment */
+    record Settlement(Integer bookingId, String paymentStatus, PaymentState state, String txnRef) {
+    }
+
+    /* booking as printed on a ticket */
+    record TicketView(Integer bookingId, String pnr, Integer userId, String flightNo, String paymentStatus,
+                      List<String> seatLabels) {
+    }
+}
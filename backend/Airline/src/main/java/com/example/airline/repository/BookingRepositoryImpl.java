@@ -0,0 +1,103 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.PaymentState;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC side of {@link BookingRepository}: payment confirmation and tickets.
+ * Loading the Booking entity, then its flight, payment and seat labels, would take a query each;
+ * here one row per seat label carries all of it, and the user row is never read.
+ */
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+
+    private static final String CONFIRM_VIEW_SQL =
+            "SELECT b.id, b.pnr, b.user_id, b.flight_id, f.flight_no, p.id, bs.seat_label " +
+            "FROM bookings b " +
+            "LEFT JOIN flights f ON f.id = b.flight_id " +
+            "LEFT JOIN payments p ON p.booking_id = b.id " +
+            "LEFT JOIN booking_seats bs ON bs.booking_id = b.id " +
+            "WHERE b.id IN (%s) ORDER BY b.id, bs.id";
+
+    private static final String TICKET_VIEW_SQL =
+            "SELECT b.id, b.pnr, b.user_id, f.flight_no, b.payment_status, bs.seat_label " +
+            "FROM bookings b " +
+            "LEFT JOIN flights f ON f.id = b.flight_id " +
+            "LEFT JOIN booking_seats bs ON bs.booking_id = b.id " +
+            "WHERE b.id = ? ORDER BY bs.id";
+
+    private final JdbcTemplate jdbc;
+
+    public BookingRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public ConfirmView findConfirmView(Integer bookingId) {
+        return findConfirmViews(List.of(bookingId)).get(bookingId);
+    }
+
+    @Override
+    public Map<Integer, ConfirmView> findConfirmViews(Collection<Integer> bookingIds) {
+        Map<Integer, ConfirmView> views = new HashMap<>();
+        if (bookingIds.isEmpty()) return views;
+        String sql = CONFIRM_VIEW_SQL.formatted(String.join(",", Collections.nCopies(bookingIds.size(), "?")));
+        jdbc.query(sql, rs -> {
+            Integer id = rs.getInt(1);
+            ConfirmView view = views.get(id);
+            if (view == null) {
+                view = new ConfirmView(id, rs.getString(2), rs.getObject(3, Integer.class), rs.getObject(4, Long.class),
+                        rs.getString(5), rs.getObject(6, Long.class), new ArrayList<>());
+                views.put(id, view);
+            }
+            // a label repeats once per payment row
+            String label = rs.getString(7);
+            if (label != null && !view.seatLabels().contains(label)) view.seatLabels().add(label);
+        }, bookingIds.toArray());
+        return views;
+    }
+
+    @Override
+    public TicketView findTicketView(Integer bookingId) {
+        return jdbc.query(TICKET_VIEW_SQL, rs -> {
+            if (!rs.next()) return null;
+            Integer id = rs.getInt(1);
+            String pnr = rs.getString(2);
+            Integer userId = rs.getObject(3, Integer.class);
+            String flightNo = rs.getString(4);
+            String paymentStatus = rs.getString(5);
+            List<String> labels = new ArrayList<>();
+            do {
+                String label = rs.getString(6);
+                if (label != null) labels.add(label);
+            } while (rs.next());
+            return new TicketView(id, pnr, userId, flightNo, paymentStatus, labels);
+        }, bookingId);
+    }
+
+    @Override
+    public void settlePayment(Integer bookingId, String paymentStatus, PaymentState state, String txnRef) {
+        jdbc.update("UPDATE bookings SET payment_status = ? WHERE id = ?", paymentStatus, bookingId);
+        jdbc.update("UPDATE payments SET status = ?, txn_ref = ? WHERE booking_id = ?",
+                state.name(), txnRef, bookingId.longValue());
+    }
+
+    @Override
+    public void settlePayments(List<Settlement> settlements) {
+        if (settlements.isEmpty()) return;
+        List<Object[]> bookings = new ArrayList<>(settlements.size());
+        List<Object[]> payments = new ArrayList<>(settlements.size());
+        for (Settlement s : settlements) {
+            bookings.add(new Object[]{s.paymentStatus(), s.bookingId()});
+            payments.add(new Object[]{s.state().name(), s.txnRef(), s.bookingId().longValue()});
+        }
+        jdbc.batchUpdate("UPDATE bookings SET payment_status = ? WHERE id = ?", bookings);
+        jdbc.batchUpdate("UPDATE payments SET status = ?, txn_ref = ? WHERE booking_id = ?", payments);
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface BookingSeatRepository extends JpaRepository<BookingSeat, Long> {
+public interface BookingSeatRepository extends JpaRepository<BookingSeat, Long>, BookingSeatRepositoryCustom {
     List<BookingSeat> findByBookingId(Long bookingId);
 
     @Query("SELECT b.seatLabel FROM BookingSeat b WHERE b.bookingId = :bookingId")
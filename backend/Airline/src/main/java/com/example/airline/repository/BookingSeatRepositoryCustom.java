@@ -0,0 +1,8 @@
+package com.example.airline.repository;
+
+import java.util.List;
+
+public interface BookingSeatRepositoryCustom {
+    // insert one booking_seats row per label as a single JDBC batch
+    void insertAll(Long bookingId, List<String> seatLabels);
+}
@@ -0,0 +1,29 @@
+package com.example.airline.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC side of {@link BookingSeatRepository}.
+ * BookingSeat ids are IDENTITY, which stops Hibernate from batching inserts; the ids are
+ * never read back on the hold path, so the rows go out as one batch here instead.
+ */
+public class BookingSeatRepositoryImpl implements BookingSeatRepositoryCustom {
+
+    private final JdbcTemplate jdbc;
+
+    public BookingSeatRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void insertAll(Long bookingId, List<String> seatLabels) {
+        List<Object[]> args = new ArrayList<>(seatLabels.size());
+        for (String label : seatLabels) {
+            args.add(new Object[]{bookingId, label});
+        }
+        jdbc.batchUpdate("INSERT INTO booking_seats (booking_id, seat_label) VALUES (?, ?)", args);
+    }
+}
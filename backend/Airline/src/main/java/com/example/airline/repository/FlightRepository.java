@@ -1,12 +1,56 @@
 package com.example.airline.repository;
 
 import com.example.airline.entity.Flight;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface FlightRepository extends JpaRepository<Flight, Integer> {
+
+    // read paths select straight into FlightView; no managed entities, no dirty-checking snapshots
+    String VIEW = "SELECT new com.example.airline.repository.FlightView(f.id, f.airline, f.flightNo, f.origin, " +
+            "f.destination, f.departure, f.arrival, f.price, f.seatsTotal, f.seatsAvailable) FROM Flight f ";
+
     // find flights by origin/destination on a given date range
-    List<Flight> findByOriginAndDestinationAndDepartureBetween(
-            String origin, String destination, LocalDateTime start, LocalDateTime end);
+    @Transactional(readOnly = true)
+    @Query(VIEW + "WHERE f.origin = :origin AND f.destination = :destination AND f.departure BETWEEN :start AND :end")
+    List<FlightView> findViews(@Param("origin") String origin,
+                               @Param("destination") String destination,
+                               @Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end);
+
+    // one flight, for the reference cache
+    @Transactional(readOnly = true)
+    @Query(VIEW + "WHERE f.id = :id")
+    Optional<FlightView> findViewById(@Param("id") Integer id);
+
+    // every flight, for the search index
+    @Transactional(readOnly = true)
+    @Query(VIEW)
+    List<FlightView> findAllViews();
+
+    // keyset page: flights after the given id, optional filters (null = any); size comes from the Pageable
+    @Transactional(readOnly = true)
+    @Query(VIEW + "WHERE f.id > :after " +
+           "AND (:origin IS NULL OR f.origin = :origin) " +
+           "AND (:destination IS NULL OR f.destination = :destination) " +
+           "AND (:from IS NULL OR f.departure >= :from) " +
+           "AND (:to IS NULL OR f.departure < :to) " +
+           "ORDER BY f.id")
+    List<FlightView> findPage(@Param("after") Integer after,
+                              @Param("origin") String origin,
+                              @Param("destination") String destination,
+                              @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to,
+                              Pageable page);
+
+    // flights with no seat rows yet; one anti-join instead of loading seats per flight
+    @Query(value = "SELECT * FROM flights f WHERE NOT EXISTS (SELECT 1 FROM seats s WHERE s.flight_id = f.id)", nativeQuery = true)
+    List<Flight> findWithoutSeats();
 }
@@ -0,0 +1,12 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.FlightSeatCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FlightSeatCountRepository extends JpaRepository<FlightSeatCount, Long> {
+
+    List<FlightSeatCount> findByFlightIdIn(Collection<Long> flightIds);
+}
@@ -0,0 +1,29 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.SeatClass;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Read-only flight row for listings and search; same JSON as the Flight entity.
+ * availableByClass (seats that can be held now, per class) is only filled in by the search index.
+ */
+public record FlightView(Integer id, String airline, String flightNo, String origin, String destination,
+                         LocalDateTime departure, LocalDateTime arrival, Double price,
+                         Integer seatsTotal, Integer seatsAvailable,
+                         @JsonInclude(JsonInclude.Include.NON_NULL) Map<SeatClass, Integer> availableByClass) {
+
+    // JPQL constructor expression: flight columns only
+    public FlightView(Integer id, String airline, String flightNo, String origin, String destination,
+                      LocalDateTime departure, LocalDateTime arrival, Double price,
+                      Integer seatsTotal, Integer seatsAvailable) {
+        this(id, airline, flightNo, origin, destination, departure, arrival, price, seatsTotal, seatsAvailable, null);
+    }
+
+    public FlightView withAvailability(Integer seatsAvailable, Map<SeatClass, Integer> availableByClass) {
+        return new FlightView(id, airline, flightNo, origin, destination, departure, arrival, price,
+                seatsTotal, seatsAvailable, availableByClass);
+    }
+}
@@ -11,10 +11,17 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface SeatRepository extends JpaRepository<Seat, Long> {
+public interface SeatRepository extends JpaRepository<Seat, Long>, SeatRepositoryCustom {
 
-    // standard finder used by BookingService.getSeatsForFlight()
-    List<Seat> findByFlightIdOrderBySeatRowAscSeatColAsc(Long flightId);
+    // seat map rows, ordered by row/col, as read-only projections
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.airline.repository.SeatView(s.seatLabel, s.seatRow, s.seatCol, s.seatClass, s.status, s.holdExpiresAt) " +
+           "FROM Seat s WHERE s.flightId = :flightId ORDER BY s.seatRow ASC, s.seatCol ASC")
+    List<SeatView> findViewsByFlightId(@Param("flightId") Long flightId);
+
+    // statuses only, same order as the finder above (compact seat map)
+    @Query("SELECT s.status FROM Seat s WHERE s.flightId = :flightId ORDER BY s.seatRow ASC, s.seatCol ASC")
+    List<SeatStatus> findStatusesByFlightId(@Param("flightId") Long flightId);
 
     // hold one seat if it's AVAILABLE
     @Modifying
@@ -22,6 +29,16 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     @Query("UPDATE Seat s SET s.status = com.example.airline.entity.SeatStatus.HELD, s.holdExpiresAt = :expires WHERE s.flightId = :flightId AND s.seatLabel = :label AND s.status = com.example.airline.entity.SeatStatus.AVAILABLE")
     int holdSeat(@Param("flightId") Long flightId, @Param("label") String label, @Param("expires") LocalDateTime expires);
 
+    // hold every listed seat that is AVAILABLE in one statement (after lockAvailable)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Seat s SET s.status = com.example.airline.entity.SeatStatus.HELD, s.holdExpiresAt = :expires WHERE s.flightId = :flightId AND s.seatLabel IN :labels AND s.status = com.example.airline.entity.SeatStatus.AVAILABLE")
+    int holdSeats(@Param("flightId") Long flightId, @Param("labels") List<String> labels, @Param("expires") LocalDateTime expires);
+
+    // lock the requested seat rows and return the labels that are still AVAILABLE
+    @Query(value = "SELECT seat_label FROM seats WHERE flight_id = :flightId AND seat_label IN (:labels) AND status = 'AVAILABLE' FOR UPDATE", nativeQuery = true)
+    List<String> lockAvailable(@Param("flightId") Long flightId, @Param("labels") List<String> labels);
+
     // release HELD seats back to AVAILABLE
     @Modifying
     @Transactional
@@ -34,7 +51,13 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     @Query("UPDATE Seat s SET s.status = com.example.airline.entity.SeatStatus.BOOKED, s.bookingId = :bookingId, s.holdExpiresAt = NULL WHERE s.flightId = :flightId AND s.seatLabel IN :labels AND s.status = com.example.airline.entity.SeatStatus.HELD")
     int bookHeldSeats(@Param("flightId") Long flightId, @Param("labels") List<String> labels, @Param("bookingId") Long bookingId);
 
-    // release expired holds (used by scheduler)
+    // release expired holds of one flight (used by the hold expiry wheel)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Seat s SET s.status = com.example.airline.entity.SeatStatus.AVAILABLE, s.holdExpiresAt = NULL WHERE s.flightId = :flightId AND s.seatLabel IN :labels AND s.status = com.example.airline.entity.SeatStatus.HELD AND s.holdExpiresAt <= :now")
+    int releaseExpiredSeats(@Param("flightId") Long flightId, @Param("labels") List<String> labels, @Param("now") LocalDateTime now);
+
+    // release expired holds (fallback sweep)
     @Modifying
     @Transactional
     @Query("UPDATE Seat s SET s.status = com.example.airline.entity.SeatStatus.AVAILABLE, s.holdExpiresAt = NULL WHERE s.status = com.example.airline.entity.SeatStatus.HELD AND s.holdExpiresAt < :now")
@@ -0,0 +1,38 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.SeatClass;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface SeatRepositoryCustom {
+
+    // lock the listed seats of every flight in one statement and return the ones still HELD, by flight
+    Map<Long, Set<String>> lockHeld(Map<Long, ? extends Collection<String>> labelsByFlight);
+
+    // HELD -> BOOKED and attach the booking, one batched UPDATE for all seats
+    void bookHeld(List<SeatBooking> seats);
+
+    // HELD -> AVAILABLE, one batched UPDATE for all seats
+    void releaseHeld(Map<Long, ? extends Collection<String>> labelsByFlight);
+
+    // labels of the flight's AVAILABLE seats in one class; no locks
+    Set<String> availableLabels(Long flightId, SeatClass seatClass);
+
+    // lock whichever listed seats are AVAILABLE and not locked by another transaction; never waits
+    Set<String> lockAvailableSkipLocked(Long flightId, Collection<String> labels);
+
+    // every HELD seat with the pending booking holding it (null if none is found), for the expiry wheel rebuild
+    List<HeldSeat> findHeldWithBooking();
+
+    /* one seat going to a booking */
+    record SeatBooking(Long flightId, String seatLabel, Long bookingId) {
+    }
+
+    /* a held seat and the booking whose hold it is */
+    record HeldSeat(Long flightId, String seatLabel, LocalDateTime holdExpiresAt, Long bookingId) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.SeatClass;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC side of {@link SeatRepository}: seat transitions of many bookings at once (batched
+ * payment confirmation), where statements are per seat so that one batch covers any mix of
+ * flights, and the reads behind seat auto-assignment.
+ */
+public class SeatRepositoryImpl implements SeatRepositoryCustom {
+
+    private final JdbcTemplate jdbc;
+
+    public SeatRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Map<Long, Set<String>> lockHeld(Map<Long, ? extends Collection<String>> labelsByFlight) {
+        Map<Long, Set<String>> held = new HashMap<>();
+        List<String> clauses = new ArrayList<>(labelsByFlight.size());
+        List<Object> args = new ArrayList<>();
+        labelsByFlight.forEach((flightId, labels) -> {
+            if (labels.isEmpty()) return;
+            clauses.add("(flight_id = ? AND seat_label IN (" + String.join(",", Collections.nCopies(labels.size(), "?")) + "))");
+            args.add(flightId);
+            args.addAll(labels);
+        });
+        if (clauses.isEmpty()) return held;
+        jdbc.query("SELECT flight_id, seat_label FROM seats WHERE status = 'HELD' AND (" +
+                        String.join(" OR ", clauses) + ") FOR UPDATE",
+                rs -> { held.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getString(2)); },
+                args.toArray());
+        return held;
+    }
+
+    @Override
+    public void bookHeld(List<SeatBooking> seats) {
+        if (seats.isEmpty()) return;
+        List<Object[]> args = new ArrayList<>(seats.size());
+        for (SeatBooking s : seats) {
+            args.add(new Object[]{s.bookingId(), s.flightId(), s.seatLabel()});
+        }
+        jdbc.batchUpdate("UPDATE seats SET status = 'BOOKED', booking_id = ?, hold_expires_at = NULL " +
+                "WHERE flight_id = ? AND seat_label = ? AND status = 'HELD'", args);
+    }
+
+    @Override
+    public void releaseHeld(Map<Long, ? extends Collection<String>> labelsByFlight) {
+        List<Object[]> args = new ArrayList<>();
+        labelsByFlight.forEach((flightId, labels) -> {
+            for (String label : labels) args.add(new Object[]{flightId, label});
+        });
+        if (args.isEmpty()) return;
+        jdbc.batchUpdate("UPDATE seats SET status = 'AVAILABLE', hold_expires_at = NULL " +
+                "WHERE flight_id = ? AND seat_label = ? AND status = 'HELD'", args);
+    }
+
+    @Override
+    public List<HeldSeat> findHeldWithBooking() {
+        // a released seat can be held again by a newer booking while the old one stays PENDING: the newest is the live hold
+        return jdbc.query("SELECT s.flight_id, s.seat_label, s.hold_expires_at, MAX(b.id) AS booking_id FROM seats s " +
+                        "LEFT JOIN booking_seats bs ON bs.seat_label = s.seat_label " +
+                        "LEFT JOIN bookings b ON b.id = bs.booking_id AND b.flight_id = s.flight_id AND b.payment_status = 'PENDING' " +
+                        "WHERE s.status = 'HELD' GROUP BY s.flight_id, s.seat_label, s.hold_expires_at",
+                (rs, i) -> {
+                    Timestamp expires = rs.getTimestamp(3);
+                    long bookingId = rs.getLong(4);
+                    return new HeldSeat(rs.getLong(1), rs.getString(2),
+                            expires == null ? null : expires.toLocalDateTime(), rs.wasNull() ? null : bookingId);
+                });
+    }
+
+    @Override
+    public Set<String> availableLabels(Long flightId, SeatClass seatClass) {
+        return new HashSet<>(jdbc.queryForList(
+                "SELECT seat_label FROM seats WHERE flight_id = ? AND seat_class = ? AND status = 'AVAILABLE'",
+                String.class, flightId, seatClass.name()));
+    }
+
+    @Override
+    public Set<String> lockAvailableSkipLocked(Long flightId, Collection<String> labels) {
+        if (labels.isEmpty()) return new HashSet<>();
+        List<Object> args = new ArrayList<>(labels.size() + 1);
+        args.add(flightId);
+        args.addAll(labels);
+        return new HashSet<>(jdbc.queryForList("SELECT seat_label FROM seats WHERE flight_id = ? AND seat_label IN (" +
+                        String.join(",", Collections.nCopies(labels.size(), "?")) + ") AND status = 'AVAILABLE' " +
+                        "FOR UPDATE SKIP LOCKED",
+                String.class, args.toArray()));
+    }
+}
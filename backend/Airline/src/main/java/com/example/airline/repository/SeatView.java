@@ -0,0 +1,17 @@
+package com.example.airline.repository;
+
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only seat row for seat maps: no row id, flight id or booking id.
+ */
+public record SeatView(String seatLabel, Integer seatRow, String seatCol, SeatClass seatClass,
+                       SeatStatus status, LocalDateTime holdExpiresAt) {
+
+    public SeatView withStatus(SeatStatus status, LocalDateTime holdExpiresAt) {
+        return new SeatView(seatLabel, seatRow, seatCol, seatClass, status, holdExpiresAt);
+    }
+}
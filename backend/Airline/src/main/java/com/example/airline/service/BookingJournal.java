@@ -0,0 +1,233 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of seat and booking lifecycle events (airline.journal.enabled=true):
+ * holds, bookings, failed payments, hold expiry and sweeps, each written once its transaction
+ * commits.
+ *
+ * Events go into memory-mapped segment files of airline.journal.segment-bytes under
+ * airline.journal.dir, each record with a CRC32C (layout in {@link JournalSegments}). A write is a
+ * copy into the mapping, so it survives a process crash at once; the mapping is forced to disk
+ * every airline.journal.force-interval-ms and when a segment fills up. On startup the last
+ * segment is scanned and appending continues after its last intact record.
+ *
+ * {@link JournalReplay} rebuilds seat state from the journal. In memory inventory mode, where seat
+ * rows are written behind and can miss the last transitions after a crash,
+ * airline.journal.recover-on-startup=true writes the replayed state into the seats table before
+ * anything loads it.
+ */
+@Service
+public class BookingJournal {
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean recoverOnStartup;
+    private final JdbcTemplate jdbc;
+    private final SeatInventoryService inventory;
+
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private long nextSeq = 1;
+    private boolean dirty;
+    private boolean recovered;
+
+    @Autowired
+    public BookingJournal(@Value("${airline.journal.enabled:false}") boolean enabled,
+                          @Value("${airline.journal.dir:data/journal}") String dir,
+                          @Value("${airline.journal.segment-bytes:67108864}") int segmentBytes,
+                          @Value("${airline.journal.recover-on-startup:false}") boolean recoverOnStartup,
+                          JdbcTemplate jdbc,
+                          SeatInventoryService inventory) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir).toAbsolutePath();
+        this.segmentBytes = Math.max(4096, segmentBytes);
+        this.recoverOnStartup = recoverOnStartup;
+        this.jdbc = jdbc;
+        this.inventory = inventory;
+        if (enabled) open();
+    }
+
+    // journal without recovery, for tests
+    BookingJournal(Path dir, int segmentBytes) {
+        this(true, dir.toString(), segmentBytes, false, null, null);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public void held(Long flightId, Long bookingId, List<String> labels, LocalDateTime expires) {
+        if (!enabled) return;
+        long expiresAt = SeatInventoryService.toMillis(expires);
+        AfterCommit.run(() -> append(JournalEvent.Type.HELD, flightId, bookingId, expiresAt, labels));
+    }
+
+    public void booked(Long flightId, Long bookingId, List<String> labels) {
+        if (!enabled) return;
+        AfterCommit.run(() -> append(JournalEvent.Type.BOOKED, flightId, bookingId, 0, labels));
+    }
+
+    public void paymentFailed(Long flightId, Long bookingId, List<String> labels) {
+        if (!enabled) return;
+        AfterCommit.run(() -> append(JournalEvent.Type.PAYMENT_FAILED, flightId, bookingId, 0, labels));
+    }
+
+    // labels released because their hold expired at or before now
+    public void expired(Long flightId, List<String> labels, LocalDateTime now) {
+        if (!enabled) return;
+        long cutoff = SeatInventoryService.toMillis(now);
+        AfterCommit.run(() -> append(JournalEvent.Type.EXPIRED, flightId, 0L, cutoff, labels));
+    }
+
+    // every hold that expired at or before now was released
+    public void swept(LocalDateTime now) {
+        if (!enabled) return;
+        long cutoff = SeatInventoryService.toMillis(now);
+        AfterCommit.run(() -> append(JournalEvent.Type.SWEPT, 0L, 0L, cutoff, List.of()));
+    }
+
+    synchronized void append(JournalEvent.Type type, Long flightId, Long bookingId, long expiresAt, List<String> labels) {
+        JournalEvent event = new JournalEvent(nextSeq, System.currentTimeMillis(), type,
+                flightId == null ? 0 : flightId, bookingId == null ? 0 : bookingId, expiresAt, labels);
+        byte[] payload = event.encode();
+        int needed = JournalSegments.RECORD_OVERHEAD + payload.length;
+        if (needed > segmentBytes - JournalSegments.HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal event larger than a segment: " + needed + " bytes");
+        }
+        if (buf.remaining() < needed) roll();
+        int pos = buf.position();
+        buf.put(pos + JournalSegments.RECORD_OVERHEAD, payload);
+        buf.putInt(pos + 4, JournalSegments.crc(buf, pos + JournalSegments.RECORD_OVERHEAD, payload.length));
+        // the length goes in last: until then the record reads as the end of the segment
+        buf.putInt(pos, payload.length);
+        buf.position(pos + needed);
+        nextSeq++;
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelayString = "${airline.journal.force-interval-ms:1000}")
+    public synchronized void force() {
+        if (!enabled || !dirty) return;
+        buf.force();
+        dirty = false;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (!enabled || channel == null) return;
+        force();
+        channel.close();
+        channel = null;
+    }
+
+    // memory mode: put seat rows in the journaled state before the inventory, the expiry wheel or the counters read them
+    @EventListener(ContextRefreshedEvent.class)
+    public void recover() throws IOException {
+        if (!enabled || !recoverOnStartup || recovered || !inventory.isEnabled()) return;
+        recovered = true;
+        synchronized (this) {
+            force();
+        }
+        JournalReplay.Result replayed = JournalReplay.replay(dir);
+        List<Object[]> args = new ArrayList<>();
+        for (Map.Entry<Long, Map<String, JournalReplay.SeatState>> f : replayed.seats().entrySet()) {
+            for (Map.Entry<String, JournalReplay.SeatState> s : f.getValue().entrySet()) {
+                JournalReplay.SeatState state = s.getValue();
+                args.add(new Object[]{
+                        state.status().name(),
+                        state.status() == SeatStatus.BOOKED && state.bookingId() != 0 ? state.bookingId() : null,
+                        state.holdExpiresAtMillis() == 0 ? null : new Timestamp(state.holdExpiresAtMillis()),
+                        f.getKey(),
+                        s.getKey()});
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbc.batchUpdate("UPDATE seats SET status = ?, booking_id = COALESCE(?, booking_id), hold_expires_at = ? " +
+                    "WHERE flight_id = ? AND seat_label = ?", args);
+        }
+        System.out.println("Booking journal: replayed " + replayed.events() + " events onto " + args.size() + " seats"
+                + (replayed.damagedSegments() > 0 ? " (" + replayed.damagedSegments() + " segments ended on a damaged record)" : ""));
+    }
+
+    // continue the last segment after its last intact record, or start the first one
+    private synchronized void open() {
+        try {
+            Files.createDirectories(dir);
+            List<Path> segments = JournalSegments.list(dir);
+            if (segments.isEmpty()) {
+                map(JournalSegments.path(dir, nextSeq), true);
+                return;
+            }
+            Path last = segments.get(segments.size() - 1);
+            nextSeq = JournalSegments.firstSeq(last);
+            map(last, false);
+            long[] seq = {nextSeq - 1};
+            JournalSegments.Scan scan = JournalSegments.scan(buf, e -> seq[0] = e.seq());
+            nextSeq = seq[0] + 1;
+            if (scan.end() < JournalSegments.HEADER_BYTES) {
+                // header unreadable: set the file aside for inspection and start a fresh segment
+                channel.close();
+                Files.move(last, last.resolveSibling(last.getFileName() + ".damaged"));
+                map(JournalSegments.path(dir, nextSeq), true);
+                return;
+            }
+            buf.position(scan.end());
+            zeroTail(scan.end());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open booking journal in " + dir, ex);
+        }
+    }
+
+    private void roll() {
+        try {
+            buf.force();
+            channel.close();
+            map(JournalSegments.path(dir, nextSeq), true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot roll booking journal segment in " + dir, ex);
+        }
+    }
+
+    private void map(Path segment, boolean fresh) throws IOException {
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, fresh ? segmentBytes : Math.max(channel.size(), JournalSegments.HEADER_BYTES));
+        if (fresh) {
+            buf.putInt(0, JournalSegments.MAGIC);
+            buf.putInt(4, JournalSegments.VERSION);
+            buf.position(JournalSegments.HEADER_BYTES);
+            buf.force();
+        }
+    }
+
+    // clear what a torn or damaged write left behind, so later records never run into it
+    private void zeroTail(int from) {
+        int end = from;
+        for (int i = from; i + 8 <= buf.limit(); i += 8) {
+            if (buf.getLong(i) != 0) end = i + 8;
+        }
+        for (int i = from; i < Math.min(end, buf.limit()); i++) buf.put(i, (byte) 0);
+    }
+}
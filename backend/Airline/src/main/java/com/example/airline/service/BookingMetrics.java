@@ -0,0 +1,251 @@
+package com.example.airline.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the booking lifecycle, exported at /actuator/prometheus.
+ *
+ *   airline.booking.hold          timer   outcome=ok|conflict|error, seats=1..4|5+
+ *   airline.booking.seat.conflicts summary seats rejected per conflicting hold
+ *   airline.booking.autoassign    counter placement=together|split|unavailable
+ *   airline.booking.confirm       timer   outcome=success|failure|rollback
+ *   airline.booking.confirm.batch summary confirmations per pipeline batch
+ *   airline.partitions.mailbox    gauge   tasks queued per booking partition, partition=0..n-1
+ *   airline.holds.release         timer   source=wheel|sweep (one run of the release job)
+ *   airline.holds.released        summary seats released per run, source=wheel|sweep
+ *   airline.holds.live            gauge   seats currently held, per flight
+ *   airline.flights.search        timer   source=index|db
+ *   airline.tickets.generate      timer   outcome=ok|error
+ *   airline.tickets.store.failures counter stage=store|rejected (after-commit renders that left no stored ticket)
+ *   airline.idempotency.requests  counter outcome=executed|replayed|mismatch|in_progress
+ *   airline.admission.requests    counter outcome=immediate|queued|rejected (holds through FlightAdmission)
+ *   airline.admission.wait        timer   time a queued hold waited for its turn
+ *   airline.cache.gets            counter cache=flight|user, result=hit|miss
+ *   airline.cache.evictions       counter cache=flight|user (size or age)
+ *   airline.cache.size            gauge   cache=flight|user
+ *   airline.datasource.reads      counter target=replica|primary (replica-eligible reads; primary = replica too far behind)
+ *   airline.replica.lag           gauge   age of the newest write seen on the read replica, ms
+ */
+@Component
+public class BookingMetrics {
+
+    // transaction resource key marking a batch attempt
+    private static final Object BATCH_ATTEMPT = new Object();
+
+    private final MeterRegistry registry;
+    private final DistributionSummary seatConflicts;
+    private final MultiGauge liveHolds;
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.seatConflicts = DistributionSummary.builder("airline.booking.seat.conflicts")
+                .description("Seats rejected per conflicting hold")
+                .baseUnit("seats")
+                .register(registry);
+        this.liveHolds = MultiGauge.builder("airline.holds.live")
+                .description("Seats currently held, per flight")
+                .baseUnit("seats")
+                .register(registry);
+    }
+
+    /**
+     * Times a hold. Recorded when the surrounding transaction completes, so commit time counts;
+     * a rollback is tagged error unless the caller marked it as a conflict.
+     */
+    public TxTimer hold(int seatsRequested) {
+        return new TxTimer(registry, "airline.booking.hold", Tags.of("seats", seatsBucket(seatsRequested)), "ok", "error");
+    }
+
+    public void conflict(int seats) {
+        seatConflicts.record(seats);
+    }
+
+    public void autoAssigned(String placement) {
+        registry.counter("airline.booking.autoassign", "placement", placement).increment();
+    }
+
+    /**
+     * Times a payment confirmation; the caller sets success or failure, a rollback overrides both.
+     */
+    public TxTimer confirm() {
+        return new TxTimer(registry, "airline.booking.confirm", Tags.empty(), "success", "rollback");
+    }
+
+    /**
+     * Marks the current transaction as a batch that is redone one item at a time if it rolls back.
+     * Timers started in it then record nothing on rollback, so only the attempt that commits counts.
+     */
+    public void batchAttempt() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(BATCH_ATTEMPT)) return;
+        TransactionSynchronizationManager.bindResource(BATCH_ATTEMPT, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BATCH_ATTEMPT);
+            }
+        });
+    }
+
+    public void confirmBatch(int confirmations) {
+        DistributionSummary.builder("airline.booking.confirm.batch")
+                .description("Payment confirmations applied per pipeline transaction")
+                .register(registry)
+                .record(confirmations);
+    }
+
+    public void partitionMailbox(int partition, Collection<?> mailbox) {
+        Gauge.builder("airline.partitions.mailbox", mailbox, Collection::size)
+                .description("Tasks queued in a booking partition's mailbox")
+                .tag("partition", Integer.toString(partition))
+                .register(registry);
+    }
+
+    public void holdsReleased(String source, int seats, long nanos) {
+        Timer.builder("airline.holds.release")
+                .description("Duration of one expired-hold release run")
+                .tag("source", source)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("airline.holds.released")
+                .description("Seats released per expired-hold release run")
+                .baseUnit("seats")
+                .tag("source", source)
+                .register(registry)
+                .record(seats);
+    }
+
+    // replaces every row, so flights without live holds drop out of the scrape
+    public void liveHolds(Map<Long, Integer> seatsByFlight) {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(seatsByFlight.size());
+        for (Map.Entry<Long, Integer> e : seatsByFlight.entrySet()) {
+            rows.add(MultiGauge.Row.of(Tags.of("flight", e.getKey().toString()), e.getValue()));
+        }
+        liveHolds.register(rows, true);
+    }
+
+    public Timer search(String source) {
+        return Timer.builder("airline.flights.search").tag("source", source).register(registry);
+    }
+
+    public Timer ticket(String outcome) {
+        return Timer.builder("airline.tickets.generate").tag("outcome", outcome).register(registry);
+    }
+
+    public void ticketStoreFailed(String stage) {
+        registry.counter("airline.tickets.store.failures", "stage", stage).increment();
+    }
+
+    public void idempotency(String outcome) {
+        registry.counter("airline.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    public void admission(String outcome, long waitNanos) {
+        registry.counter("airline.admission.requests", "outcome", outcome).increment();
+        if (waitNanos > 0) {
+            Timer.builder("airline.admission.wait")
+                    .description("Time a hold waited in its flight's admission queue")
+                    .register(registry)
+                    .record(waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void replicaRead(String target) {
+        registry.counter("airline.datasource.reads", "target", target).increment();
+    }
+
+    // NaN until the first heartbeat reaches the replica
+    public void replicaLag(Supplier<Number> lagMillis) {
+        Gauge.builder("airline.replica.lag", lagMillis)
+                .description("Age of the newest write seen on the read replica")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    // hit rate = rate(gets{result="hit"}) / rate(gets)
+    void nearCache(String name, NearCache<?, ?> cache) {
+        FunctionCounter.builder("airline.cache.gets", cache, NearCache::hits)
+                .description("Near cache lookups")
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("airline.cache.gets", cache, NearCache::misses)
+                .description("Near cache lookups")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("airline.cache.evictions", cache, NearCache::evictions)
+                .description("Near cache entries dropped for size or age")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("airline.cache.size", cache, NearCache::size)
+                .description("Near cache entries")
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private static String seatsBucket(int seats) {
+        return seats >= 5 ? "5+" : Integer.toString(seats);
+    }
+
+    /**
+     * Timer sample tied to the current transaction: recorded with the outcome set by the caller
+     * on commit, or with the failure outcome on rollback, unless the transaction is a batch attempt
+     * (see batchAttempt). Nothing is recorded outside a transaction.
+     */
+    public static class TxTimer {
+        private final Timer.Sample sample;
+        private final MeterRegistry registry;
+        private final String name;
+        private final Tags tags;
+        private volatile String outcome;
+        private volatile String failureOutcome;
+        // a rolled-back batch attempt is redone, and the redo records the outcome
+        private final boolean dropOnRollback;
+
+        TxTimer(MeterRegistry registry, String name, Tags tags, String outcome, String failureOutcome) {
+            this.sample = Timer.start(registry);
+            this.registry = registry;
+            this.name = name;
+            this.tags = tags;
+            this.outcome = outcome;
+            this.failureOutcome = failureOutcome;
+            this.dropOnRollback = TransactionSynchronizationManager.hasResource(BATCH_ATTEMPT);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_COMMITTED) stop(TxTimer.this.outcome);
+                        else if (!dropOnRollback) stop(TxTimer.this.failureOutcome);
+                    }
+                });
+            }
+        }
+
+        public void outcome(String outcome) {
+            this.outcome = outcome;
+        }
+
+        public void failedWith(String outcome) {
+            this.failureOutcome = outcome;
+        }
+
+        private void stop(String tag) {
+            sample.stop(Timer.builder(name).tags(tags).tag("outcome", tag).register(registry));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.airline.service;
+
+import com.example.airline.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution of seat mutations (airline.partitions.enabled=true).
+ *
+ * Every flight belongs to one of airline.partitions.count partitions (flightId mod count). Each
+ * partition is one thread with a bounded mailbox (airline.partitions.mailbox-capacity): holds and
+ * payment confirmations for its flights are queued there and run one after another, so requests
+ * for one flight never wait on each other's seat row locks or CAS retries while holding a pooled
+ * connection, and a hot flight keeps at most one connection busy. Consecutive holds in a mailbox,
+ * up to airline.partitions.batch-size, run in one transaction; a seat conflict is answered inside
+ * the batch, and a hold failing any other way is run again on its own while the others are redone
+ * without it. Consecutive confirmations are applied in one transaction, as in
+ * {@link ConfirmationPipeline}. Metrics only count the attempt that commits.
+ *
+ * The seat transitions stay safe under concurrency (row locks, CAS), so the partitions are an
+ * ordering optimisation, not what keeps seats consistent: when disabled, when a mailbox is full,
+ * or before startup and after shutdown, the work runs on the caller's thread. Hold expiry keeps
+ * running on its own scheduler.
+ */
+@Service
+public class BookingPartitions {
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepo;
+    private final BookingMetrics metrics;
+    private final boolean enabled;
+    private final int batchSize;
+    private final List<BlockingQueue<Task>> mailboxes = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public BookingPartitions(BookingService bookingService,
+                             BookingRepository bookingRepo,
+                             BookingMetrics metrics,
+                             @Value("${airline.partitions.enabled:false}") boolean enabled,
+                             @Value("${airline.partitions.count:4}") int count,
+                             @Value("${airline.partitions.mailbox-capacity:1024}") int mailboxCapacity,
+                             @Value("${airline.partitions.batch-size:64}") int batchSize) {
+        this.bookingService = bookingService;
+        this.bookingRepo = bookingRepo;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        for (int i = 0; i < Math.max(1, count); i++) {
+            mailboxes.add(new ArrayBlockingQueue<>(Math.max(1, mailboxCapacity)));
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Run a seat mutation of the flight on its partition and return its result.
+     * Throws whatever the work throws.
+     */
+    public <T> T execute(Integer flightId, Supplier<T> work) {
+        Task task = new Task(work, null);
+        if (!offer(flightId, task)) return work.get();
+        return await(task);
+    }
+
+    /**
+     * Confirm a payment on the partition of the booking's flight. Throws what confirmPayment would throw.
+     */
+    public void confirm(Integer bookingId, boolean success, String txnRef) {
+        BookingService.Confirmation confirmation = new BookingService.Confirmation(bookingId, success, txnRef);
+        Integer flightId = running ? bookingRepo.findFlightIdById(bookingId) : null;
+        Task task = new Task(null, confirmation);
+        // an unknown booking fails in confirmPayment like it would anywhere else
+        if (flightId == null || !offer(flightId, task)) {
+            bookingService.confirmPayment(bookingId, success, txnRef);
+            return;
+        }
+        await(task);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) return;
+        running = true;
+        for (int i = 0; i < mailboxes.size(); i++) {
+            BlockingQueue<Task> mailbox = mailboxes.get(i);
+            metrics.partitionMailbox(i, mailbox);
+            Thread t = new Thread(() -> drain(mailbox), "booking-partition-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    // stop taking new work, let every partition finish its batch, then run what is still queued
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) return;
+        running = false;
+        for (Thread t : threads) t.join(10_000);
+        threads.clear();
+        for (BlockingQueue<Task> mailbox : mailboxes) {
+            List<Task> rest = new ArrayList<>();
+            while (mailbox.drainTo(rest, batchSize) > 0) {
+                run(rest);
+                rest.clear();
+            }
+        }
+    }
+
+    private boolean offer(Integer flightId, Task task) {
+        BlockingQueue<Task> mailbox = mailboxes.get(Math.floorMod(flightId, mailboxes.size()));
+        // stopped after the offer: whatever stop() no longer drained is taken back and run by the caller
+        return running && mailbox.offer(task) && (running || !mailbox.remove(task));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(Task task) {
+        try {
+            return (T) task.result.get();
+        } catch (InterruptedException ex) {
+            // the work still runs on its partition; only this caller stops waiting
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a booking partition");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void drain(BlockingQueue<Task> mailbox) {
+        List<Task> batch = new ArrayList<>(batchSize);
+        while (running) {
+            Task first;
+            try {
+                // polled rather than taken, so stop() never has to interrupt a partition inside JDBC
+                first = mailbox.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (first == null) continue;
+            batch.add(first);
+            mailbox.drainTo(batch, batchSize - 1);
+            run(batch);
+            batch.clear();
+        }
+    }
+
+    // in mailbox order; each run of consecutive holds, and of consecutive confirmations, is one transaction
+    private void run(List<Task> batch) {
+        List<BookingService.Confirmation> confirmations = new ArrayList<>();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        List<Task> holds = new ArrayList<>();
+        for (Task task : batch) {
+            if (task.confirmation != null) {
+                hold(holds);
+                confirmations.add(task.confirmation);
+                results.add(task.confirmed());
+            } else {
+                flush(confirmations, results);
+                holds.add(task);
+            }
+        }
+        hold(holds);
+        flush(confirmations, results);
+    }
+
+    // a hold that fails other than by a conflict rolls the batch back: the holds ahead of it are
+    // redone once as a batch of their own, it runs alone (so it is answered and timed once, by
+    // the attempt that counts), and the batch carries on after it
+    private void hold(List<Task> holds) {
+        int from = 0;
+        while (holds.size() - from > 1) {
+            List<Task> rest = holds.subList(from, holds.size());
+            List<Supplier<?>> work = new ArrayList<>(rest.size());
+            for (Task task : rest) work.add(task.work);
+            try {
+                List<BookingService.HoldOutcome> done = bookingService.holdBatch(work);
+                for (int i = 0; i < rest.size(); i++) {
+                    BookingService.HoldOutcome outcome = done.get(i);
+                    if (outcome.conflict() == null) rest.get(i).result.complete(outcome.response());
+                    else rest.get(i).result.completeExceptionally(outcome.conflict());
+                }
+                holds.clear();
+                return;
+            } catch (BookingService.HoldBatchFailure ex) {
+                hold(new ArrayList<>(rest.subList(0, ex.getIndex())));
+                runAlone(rest.get(ex.getIndex()));
+                from += ex.getIndex() + 1;
+            } catch (RuntimeException ex) {
+                // the commit failed, not a hold: no telling which one caused it
+                break;
+            }
+        }
+        for (Task task : holds.subList(from, holds.size())) runAlone(task);
+        holds.clear();
+    }
+
+    private static void runAlone(Task task) {
+        try {
+            task.result.complete(task.work.get());
+        } catch (RuntimeException ex) {
+            task.result.completeExceptionally(ex);
+        }
+    }
+
+    private void flush(List<BookingService.Confirmation> confirmations, List<CompletableFuture<Void>> results) {
+        if (confirmations.isEmpty()) return;
+        ConfirmationPipeline.applyBatch(bookingService, metrics, confirmations, results);
+        confirmations.clear();
+        results.clear();
+    }
+
+    // either work (a hold) or a confirmation
+    private static final class Task {
+        final Supplier<?> work;
+        final BookingService.Confirmation confirmation;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Task(Supplier<?> work, BookingService.Confirmation confirmation) {
+            this.work = work;
+            this.confirmation = confirmation;
+        }
+
+        // the confirmation's outcome, passed on to result
+        CompletableFuture<Void> confirmed() {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            done.whenComplete((v, ex) -> {
+                if (ex == null) result.complete(null);
+                else result.completeExceptionally(ex);
+            });
+            return done;
+        }
+    }
+}
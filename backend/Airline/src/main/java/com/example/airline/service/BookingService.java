@@ -1,24 +1,27 @@
 package com.example.airline.service;
 
 import com.example.airline.entity.Booking;
-import com.example.airline.entity.BookingSeat;
-import com.example.airline.entity.Flight;
 import com.example.airline.entity.Payment;
 import com.example.airline.entity.PaymentState;
-import com.example.airline.entity.Seat;
-import com.example.airline.entity.User;
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
 import com.example.airline.repository.BookingRepository;
+import com.example.airline.repository.BookingRepositoryCustom;
 import com.example.airline.repository.BookingSeatRepository;
 import com.example.airline.repository.FlightRepository;
 import com.example.airline.repository.PaymentRepository;
 import com.example.airline.repository.SeatRepository;
+import com.example.airline.repository.SeatRepositoryCustom;
+import com.example.airline.repository.SeatView;
 import com.example.airline.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,29 +33,75 @@ public class BookingService {
     private final PaymentRepository paymentRepo;
     private final UserRepository userRepo;
     private final FlightRepository flightRepo;
-
-    private static final int HOLD_MINUTES = 10;
+    private final SeatInventoryService inventory;
+    private final HoldExpiryService holdExpiry;
+    private final SeatMapService seatMap;
+    private final SeatCountService seatCounts;
+    private final BookingMetrics metrics;
+    private final TicketService tickets;
+    private final PnrAllocator pnrs;
+    private final BookingJournal journal;
+    private final ReferenceCache references;
+    private final long holdSeconds;
+    private final int autoAssignAttempts;
 
     public BookingService(SeatRepository seatRepo,
                           BookingRepository bookingRepo,
                           BookingSeatRepository bookingSeatRepo,
                           PaymentRepository paymentRepo,
                           UserRepository userRepo,
-                          FlightRepository flightRepo) {
+                          FlightRepository flightRepo,
+                          SeatInventoryService inventory,
+                          HoldExpiryService holdExpiry,
+                          SeatMapService seatMap,
+                          SeatCountService seatCounts,
+                          BookingMetrics metrics,
+                          TicketService tickets,
+                          PnrAllocator pnrs,
+                          BookingJournal journal,
+                          ReferenceCache references,
+                          @Value("${airline.holds.duration-seconds:600}") long holdSeconds,
+                          @Value("${airline.auto-assign.max-attempts:5}") int autoAssignAttempts) {
         this.seatRepo = seatRepo;
         this.bookingRepo = bookingRepo;
         this.bookingSeatRepo = bookingSeatRepo;
         this.paymentRepo = paymentRepo;
         this.userRepo = userRepo;
         this.flightRepo = flightRepo;
+        this.inventory = inventory;
+        this.holdExpiry = holdExpiry;
+        this.seatMap = seatMap;
+        this.seatCounts = seatCounts;
+        this.metrics = metrics;
+        this.tickets = tickets;
+        this.pnrs = pnrs;
+        this.journal = journal;
+        this.references = references;
+        this.holdSeconds = holdSeconds;
+        this.autoAssignAttempts = Math.max(1, autoAssignAttempts);
     }
 
     /**
-     * Return seats for a flight (ordered by row/col).
-     * flightId param is Integer in your domain; Seat.flightId is Long, so convert.
+     * Return seats for a flight (ordered by row/col) as read-only projections.
+     * In memory inventory mode the seat rows may lag behind, so statuses come from the inventory.
      */
-    public List<Seat> getSeatsForFlight(Integer flightId) {
-        return seatRepo.findByFlightIdOrderBySeatRowAscSeatColAsc(flightId.longValue());
+    @Transactional(readOnly = true)
+    public List<SeatView> getSeatsForFlight(Integer flightId) {
+        if (!inventory.isEnabled()) return seatRepo.findViewsByFlightId(flightId.longValue());
+
+        // inventory first: a first load must pick the primary, and the transaction keeps its first connection
+        SeatInventory inv = inventory.forFlight(flightId.longValue());
+        List<SeatView> seats = seatRepo.findViewsByFlightId(flightId.longValue());
+        List<SeatView> out = new ArrayList<>(seats.size());
+        for (SeatView s : seats) {
+            SeatStatus live = inv.statusOf(s.seatLabel());
+            if (live == null || live == s.status()) {
+                out.add(s);
+            } else {
+                out.add(s.withStatus(live, live == SeatStatus.HELD ? s.holdExpiresAt() : null));
+            }
+        }
+        return out;
     }
 
     /**
@@ -65,49 +114,144 @@ public class BookingService {
      * @param amount    total amount
      * @return HoldResponse containing booking id, pnr, amount and expiresAt
      */
-    @Transactional
+    // a conflict is found before anything is written, so it leaves an enclosing batch usable
+    @Transactional(noRollbackFor = SeatConflictException.class)
     public HoldResponse holdSeats(Integer userId, Integer flightId, List<String> seatLabels, BigDecimal amount) {
-        // validate user and flight exist
-        User user = userRepo.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
-        Flight flight = flightRepo.findById(flightId)
-                .orElseThrow(() -> new IllegalArgumentException("Flight not found: " + flightId));
+        BookingMetrics.TxTimer timer = metrics.hold(seatLabels == null ? 0 : seatLabels.size());
+
+        // validate user and flight exist; answered from the near cache when it can
+        references.requireUser(userId);
+        references.requireFlight(flightId);
 
         if (seatLabels == null || seatLabels.isEmpty()) {
             throw new IllegalArgumentException("No seats requested");
         }
 
         // expiry for hold
-        LocalDateTime expires = LocalDateTime.now().plusMinutes(HOLD_MINUTES);
-        List<String> held = new ArrayList<>();
+        LocalDateTime expires = LocalDateTime.now().plusSeconds(holdSeconds);
 
-        // Try to hold each seat atomically via repository query that checks status == AVAILABLE
-        // SeatRepository methods expect Long flightId because Seat.flightId is Long
-        for (String label : seatLabels) {
-            int updated = seatRepo.holdSeat(flightId.longValue(), label, expires);
-            if (updated != 1) {
-                // release any seats we already held in this attempt
-                if (!held.isEmpty()) {
-                    try {
-                        seatRepo.releaseHeldSeats(flightId.longValue(), held);
-                    } catch (Exception ignore) {
-                    }
+        List<String> labels = new ArrayList<>(new LinkedHashSet<>(seatLabels));
+
+        try {
+            if (inventory.isEnabled()) {
+                // decided in memory; seat rows are written behind after commit
+                inventory.hold(flightId.longValue(), labels, expires);
+            } else {
+                holdSeatsInDb(flightId, labels, expires);
+            }
+        } catch (SeatConflictException ex) {
+            timer.outcome("conflict");
+            timer.failedWith("conflict");
+            // counters only for a hold that stays answered: a rolled-back batch runs it again
+            AfterCommit.run(() -> metrics.conflict(ex.getConflicts().size()));
+            throw ex;
+        }
+        return createPendingBooking(userId, flightId, labels, amount, expires);
+    }
+
+    /**
+     * Hold count seats of one class picked by the server: adjacent when the class has a block big
+     * enough, otherwise split over the fewest neighbouring rows (see {@link SeatAllocator}).
+     * Seats lost to a concurrent hold between planning and claiming are left out of the next plan,
+     * up to airline.auto-assign.max-attempts plans.
+     */
+    @Transactional(noRollbackFor = SeatConflictException.class)
+    public HoldResponse holdAutoAssigned(Integer userId, Integer flightId, SeatClass seatClass, int count, BigDecimal amount) {
+        BookingMetrics.TxTimer timer = metrics.hold(count);
+
+        references.requireUser(userId);
+        references.requireFlight(flightId);
+        if (seatClass == null || count <= 0) {
+            throw new IllegalArgumentException("Seat class and a positive seat count are required");
+        }
+        LocalDateTime expires = LocalDateTime.now().plusSeconds(holdSeconds);
+
+        SeatAllocator.Plan plan;
+        try {
+            plan = inventory.isEnabled()
+                    ? autoAssignInMemory(flightId.longValue(), seatClass, count, expires)
+                    : autoAssignInDb(flightId.longValue(), seatClass, count, expires);
+        } catch (SeatConflictException ex) {
+            timer.outcome("conflict");
+            timer.failedWith("conflict");
+            AfterCommit.run(() -> metrics.autoAssigned("unavailable"));
+            throw ex;
+        }
+        AfterCommit.run(() -> metrics.autoAssigned(plan.together() ? "together" : "split"));
+        HoldResponse resp = createPendingBooking(userId, flightId, plan.labels(), amount, expires);
+        return resp.withSeats(plan.labels(), plan.together());
+    }
+
+    // plan against the inventory; its all-or-nothing CAS hold says which seats were lost to a race
+    private SeatAllocator.Plan autoAssignInMemory(Long flightId, SeatClass seatClass, int count, LocalDateTime expires) {
+        SeatMapService.SeatLayout layout = seatMap.layout(flightId);
+        SeatInventory inv = inventory.forFlight(flightId);
+        Set<String> lost = new HashSet<>();
+        for (int attempt = 0; attempt < autoAssignAttempts; attempt++) {
+            SeatAllocator.Plan plan = SeatAllocator.plan(layout, seatClass, count, i -> {
+                String label = layout.getLabels().get(i);
+                return !lost.contains(label) && inv.statusOf(label) == SeatStatus.AVAILABLE;
+            });
+            if (plan.isEmpty()) break;
+            try {
+                inventory.hold(flightId, plan.labels(), expires);
+                return plan;
+            } catch (SeatConflictException ex) {
+                lost.addAll(ex.getConflicts());
+            }
+        }
+        throw noSeats(seatClass, count);
+    }
+
+    /**
+     * Plan against an unlocked read of the free seats, then lock the picked rows with SKIP LOCKED:
+     * seats another hold is claiming are dropped from the next plan instead of waited on.
+     * Rows locked but not used in the end stay locked (still AVAILABLE) until commit.
+     */
+    private SeatAllocator.Plan autoAssignInDb(Long flightId, SeatClass seatClass, int count, LocalDateTime expires) {
+        SeatMapService.SeatLayout layout = seatMap.layout(flightId);
+        Set<String> free = seatRepo.availableLabels(flightId, seatClass);
+        Set<String> locked = new HashSet<>();
+        for (int attempt = 0; attempt < autoAssignAttempts; attempt++) {
+            SeatAllocator.Plan plan = SeatAllocator.plan(layout, seatClass, count,
+                    i -> free.contains(layout.getLabels().get(i)));
+            if (plan.isEmpty()) break;
+            List<String> toLock = plan.labels().stream().filter(l -> !locked.contains(l)).toList();
+            Set<String> got = seatRepo.lockAvailableSkipLocked(flightId, toLock);
+            locked.addAll(got);
+            if (got.size() == toLock.size()) {
+                int updated = seatRepo.holdSeats(flightId, plan.labels(), expires);
+                if (updated != count) {
+                    throw new IllegalStateException("Failed to hold all seats (held=" + updated + " expected=" + count + ")");
                 }
-                throw new IllegalStateException("Seat not available: " + label);
+                return plan;
             }
-            held.add(label);
+            toLock.stream().filter(l -> !got.contains(l)).forEach(free::remove);
         }
+        throw noSeats(seatClass, count);
+    }
+
+    private static SeatConflictException noSeats(SeatClass seatClass, int count) {
+        return new SeatConflictException("Not enough " + seatClass + " seats available for " + count, List.of());
+    }
+
+    // seat state is claimed; everything else a hold writes
+    private HoldResponse createPendingBooking(Integer userId, Integer flightId, List<String> labels,
+                                              BigDecimal amount, LocalDateTime expires) {
+        seatMap.changed(flightId.longValue(), labels, SeatStatus.AVAILABLE, SeatStatus.HELD);
+        seatCounts.changed(flightId.longValue(), labels, SeatStatus.AVAILABLE, SeatStatus.HELD);
 
         // Create booking (PENDING). Your Booking entity has User and Flight references.
         Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setFlight(flight);
+        // references are enough for the foreign keys; neither row is read
+        booking.setUser(userRepo.getReferenceById(userId));
+        booking.setFlight(flightRepo.getReferenceById(flightId));
         booking.setPaymentStatus("PENDING");    // String field in your Booking entity
-        booking.setPnr(generatePnr(flightId));
+        booking.setPnr(pnrs.next());
         booking.setCreatedAt(LocalDateTime.now());
 
         // --- IMPORTANT: populate NOT NULL fields so DB insert succeeds ---
-        booking.setSeatsBooked(seatLabels.size());
+        booking.setSeatsBooked(labels.size());
         booking.setTotalPrice(amount == null ? 0.0 : amount.doubleValue());
         booking.setStatus("PENDING"); // mark booking as pending while payment is not complete
         // -----------------------------------------------------------------
@@ -117,13 +261,12 @@ public class BookingService {
         // Convert booking id (Integer) to Long for booking_seat.bookingId & payment.bookingId
         Long bookingIdLong = booking.getId() == null ? null : booking.getId().longValue();
 
-        // Insert booking_seats
-        for (String label : seatLabels) {
-            BookingSeat bs = new BookingSeat();
-            bs.setBookingId(bookingIdLong);
-            bs.setSeatLabel(label);
-            bookingSeatRepo.save(bs);
-        }
+        // Insert booking_seats as one JDBC batch
+        bookingSeatRepo.insertAll(bookingIdLong, labels);
+
+        // expiry is driven by the timing wheel from here on
+        holdExpiry.schedule(bookingIdLong, flightId.longValue(), labels, expires);
+        journal.held(flightId.longValue(), bookingIdLong, labels, expires);
 
         // Insert payment record (PENDING)
         Payment payment = new Payment();
@@ -137,80 +280,245 @@ public class BookingService {
         return new HoldResponse(booking.getId(), booking.getPnr(), payment.getAmount(), expires);
     }
 
+    /**
+     * Set-based hold: one locking read finds every conflicting label, one UPDATE claims the rest.
+     * Round trips stay constant however many seats are requested.
+     */
+    private void holdSeatsInDb(Integer flightId, List<String> labels, LocalDateTime expires) {
+        // SeatRepository methods expect Long flightId because Seat.flightId is Long
+        Long fid = flightId.longValue();
+        Set<String> available = new HashSet<>(seatRepo.lockAvailable(fid, labels));
+        if (available.size() != labels.size()) {
+            List<String> conflicts = labels.stream().filter(l -> !available.contains(l)).toList();
+            throw new SeatConflictException(conflicts);
+        }
+        int updated = seatRepo.holdSeats(fid, labels, expires);
+        if (updated != labels.size()) {
+            // rows are locked above, so this means the seats table changed under us
+            throw new IllegalStateException("Failed to hold all seats (held=" + updated + " expected=" + labels.size() + ")");
+        }
+    }
+
     /**
      * Confirm mock payment. bookingId is Integer (matches your Booking repo).
      * On success: make HELD -> BOOKED, mark booking.paymentStatus="PAID", payment SUCCESS.
      * On failure: mark payment FAILED and release held seats.
+     * Booking, payment and seat labels come from one projection query and every change is a bulk
+     * UPDATE, so no entity (and no user row) is loaded and the statement count stays fixed.
      */
     @Transactional
     public void confirmPayment(Integer bookingId, boolean success, String txnRef) {
-        // load booking
-        Booking booking = bookingRepo.findById(bookingId)
-                .orElseThrow(() -> new IllegalArgumentException("Booking not found: " + bookingId));
-        Long bookingIdLong = booking.getId() == null ? null : booking.getId().longValue();
-
-        // load payment record for the booking
-        Payment payment = paymentRepo.findByBookingId(bookingIdLong)
-                .orElseThrow(() -> new IllegalStateException("Payment record missing for booking: " + bookingId));
-
-        if (success) {
-            // mark payment success
-            payment.setStatus(PaymentState.SUCCESS);
-            payment.setTxnRef(txnRef);
-            paymentRepo.save(payment);
+        BookingMetrics.TxTimer timer = metrics.confirm();
 
-            // update booking status
-            booking.setPaymentStatus("PAID");
-            bookingRepo.save(booking);
+        BookingRepositoryCustom.ConfirmView view = bookingRepo.findConfirmView(bookingId);
+        if (view == null) {
+            throw new IllegalArgumentException("Booking not found: " + bookingId);
+        }
+        if (view.paymentId() == null) {
+            throw new IllegalStateException("Payment record missing for booking: " + bookingId);
+        }
+        Long bookingIdLong = bookingId.longValue();
+        Long flightId = view.flightId();
+        List<String> labels = view.seatLabels();
 
-            // find seat labels for the booking
-            List<String> labels = bookingSeatRepo.findSeatLabelsByBookingId(bookingIdLong);
-            if (labels == null) labels = Collections.emptyList();
+        // the hold ends here either way
+        holdExpiry.cancel(bookingIdLong);
 
+        if (success) {
             // convert HELD -> BOOKED on seats table
             int changed = 0;
             if (!labels.isEmpty()) {
-                changed = seatRepo.bookHeldSeats(booking.getFlight().getId().longValue(), labels, bookingIdLong);
+                changed = inventory.isEnabled()
+                        ? inventory.book(flightId, labels, bookingIdLong)
+                        : seatRepo.bookHeldSeats(flightId, labels, bookingIdLong);
             }
-
             if (changed != labels.size()) {
                 // partly failed to book seats; throw so transaction rolls back
                 throw new IllegalStateException("Failed to mark all seats BOOKED (changed=" + changed + " expected=" + labels.size() + ")");
             }
+            bookingRepo.settlePayment(bookingId, "PAID", PaymentState.SUCCESS, txnRef);
+            journal.booked(flightId, bookingIdLong, labels);
 
-            // ---- IMPORTANT: decrement flight.seatsAvailable summary ----
-            Flight flight = booking.getFlight();
-            if (flight != null) {
-                Integer avail = flight.getSeatsAvailable();
-                if (avail == null) avail = 0;
-                int bookedCount = labels == null ? 0 : labels.size();
-                flight.setSeatsAvailable(Math.max(0, avail - bookedCount));
-                flightRepo.save(flight);
-            }
+            // per-class counters and flights.seats_available follow with atomic increments after commit
+            seatMap.changed(flightId, labels, SeatStatus.HELD, SeatStatus.BOOKED);
+            seatCounts.changed(flightId, labels, SeatStatus.HELD, SeatStatus.BOOKED);
+
+            // ticket is rendered once, after commit, from what is already loaded here
+            tickets.renderAfterCommit(new TicketService.TicketData(
+                    view.bookingId(), view.pnr(), view.userId(), view.flightNo(), labels, "PAID"));
 
         } else {
+            timer.outcome("failure");
             // payment failed: mark payment and booking; release held seats
-            payment.setStatus(PaymentState.FAILED);
-            payment.setTxnRef(txnRef);
-            paymentRepo.save(payment);
+            bookingRepo.settlePayment(bookingId, "FAILED", PaymentState.FAILED, txnRef);
+            journal.paymentFailed(flightId, bookingIdLong, labels);
+
+            // only seats still held are released: an expired hold was already released and counted
+            if (!labels.isEmpty()) {
+                if (inventory.isEnabled()) {
+                    releasedAfterFailure(flightId, inventory.release(flightId, labels));
+                } else {
+                    int released = seatRepo.releaseHeldSeats(flightId, labels);
+                    if (released == labels.size()) {
+                        releasedAfterFailure(flightId, labels);
+                    } else if (released > 0) {
+                        // some were, but the count does not say which
+                        seatMap.changedUnknown(flightId);
+                        seatCounts.changedUnknown(flightId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run holds (holdSeats / holdAutoAssigned calls) in order in one transaction (used by
+     * BookingPartitions). Returns one outcome per hold: its response, or the seat conflict it was
+     * refused with, which writes nothing and leaves the batch going. Any other failure rolls back
+     * the whole batch; the HoldBatchFailure it is wrapped in says which hold it was.
+     */
+    @Transactional
+    public List<HoldOutcome> holdBatch(List<? extends Supplier<?>> holds) {
+        metrics.batchAttempt();
+        List<HoldOutcome> outcomes = new ArrayList<>(holds.size());
+        for (int i = 0; i < holds.size(); i++) {
+            try {
+                outcomes.add(new HoldOutcome(holds.get(i).get(), null));
+            } catch (SeatConflictException ex) {
+                outcomes.add(new HoldOutcome(null, ex));
+            } catch (RuntimeException ex) {
+                throw new HoldBatchFailure(i, ex);
+            }
+        }
+        return outcomes;
+    }
 
-            booking.setPaymentStatus("FAILED");
-            bookingRepo.save(booking);
+    /**
+     * confirmPayment for a batch of bookings in one transaction (used by ConfirmationPipeline).
+     * Every seat transition and settlement of the batch goes out as one batched statement per
+     * table. A confirmation that cannot be applied (booking or payment missing, seats no longer
+     * held, same booking twice) is left out instead of failing the batch. Returns one entry per
+     * confirmation, in order: null if it was applied, otherwise the exception confirmPayment
+     * would have thrown for it.
+     */
+    @Transactional
+    public List<RuntimeException> confirmPayments(List<Confirmation> batch) {
+        metrics.batchAttempt();
+        List<RuntimeException> rejected = new ArrayList<>(Collections.nCopies(batch.size(), null));
+        Map<Integer, BookingRepositoryCustom.ConfirmView> views =
+                bookingRepo.findConfirmViews(batch.stream().map(Confirmation::bookingId).collect(Collectors.toSet()));
+
+        List<BookingMetrics.TxTimer> timers = new ArrayList<>(batch.size());
+        Set<Integer> seen = new HashSet<>();
+        Map<Long, Set<String>> toLock = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Confirmation c = batch.get(i);
+            BookingMetrics.TxTimer timer = metrics.confirm();
+            timers.add(timer);
+            BookingRepositoryCustom.ConfirmView view = views.get(c.bookingId());
+            if (view == null) {
+                rejected.set(i, new IllegalArgumentException("Booking not found: " + c.bookingId()));
+            } else if (view.paymentId() == null) {
+                rejected.set(i, new IllegalStateException("Payment record missing for booking: " + c.bookingId()));
+            } else if (!seen.add(c.bookingId())) {
+                rejected.set(i, new IllegalStateException("Payment for booking " + c.bookingId() + " confirmed twice in one batch"));
+            } else {
+                toLock.computeIfAbsent(view.flightId(), k -> new HashSet<>()).addAll(view.seatLabels());
+            }
+            if (rejected.get(i) != null) timer.outcome("rollback");
+        }
 
-            List<String> labels = bookingSeatRepo.findSeatLabelsByBookingId(bookingIdLong);
-            if (labels != null && !labels.isEmpty()) {
-                seatRepo.releaseHeldSeats(booking.getFlight().getId().longValue(), labels);
+        // db mode: one locking read over every seat to be booked or released; memory mode decides per booking below
+        Map<Long, Set<String>> held = inventory.isEnabled() || toLock.isEmpty()
+                ? Collections.emptyMap() : seatRepo.lockHeld(toLock);
+
+        List<SeatRepositoryCustom.SeatBooking> booked = new ArrayList<>();
+        Map<Long, List<String>> released = new HashMap<>();
+        List<BookingRepositoryCustom.Settlement> settlements = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (rejected.get(i) != null) continue;
+            Confirmation c = batch.get(i);
+            BookingRepositoryCustom.ConfirmView view = views.get(c.bookingId());
+            Long bookingIdLong = c.bookingId().longValue();
+            Long flightId = view.flightId();
+            List<String> labels = view.seatLabels();
+
+            if (c.success()) {
+                int changed = labels.isEmpty() ? 0 : bookSeats(flightId, labels, bookingIdLong, held, booked);
+                if (changed != labels.size()) {
+                    rejected.set(i, new IllegalStateException("Failed to mark all seats BOOKED (changed=" + changed + " expected=" + labels.size() + ")"));
+                    timers.get(i).outcome("rollback");
+                    continue;
+                }
+                holdExpiry.cancel(bookingIdLong);
+                settlements.add(new BookingRepositoryCustom.Settlement(c.bookingId(), "PAID", PaymentState.SUCCESS, c.txnRef()));
+                journal.booked(flightId, bookingIdLong, labels);
+                seatMap.changed(flightId, labels, SeatStatus.HELD, SeatStatus.BOOKED);
+                seatCounts.changed(flightId, labels, SeatStatus.HELD, SeatStatus.BOOKED);
+                tickets.renderAfterCommit(new TicketService.TicketData(
+                        view.bookingId(), view.pnr(), view.userId(), view.flightNo(), labels, "PAID"));
+            } else {
+                timers.get(i).outcome("failure");
+                holdExpiry.cancel(bookingIdLong);
+                settlements.add(new BookingRepositoryCustom.Settlement(c.bookingId(), "FAILED", PaymentState.FAILED, c.txnRef()));
+                journal.paymentFailed(flightId, bookingIdLong, labels);
+                if (!labels.isEmpty()) {
+                    List<String> freed;
+                    if (inventory.isEnabled()) {
+                        freed = inventory.release(flightId, labels);
+                    } else {
+                        // only seats still held; claimed seats leave the locked set
+                        Set<String> stillHeld = held.getOrDefault(flightId, Collections.emptySet());
+                        freed = labels.stream().filter(stillHeld::contains).toList();
+                        stillHeld.removeAll(freed);
+                        released.computeIfAbsent(flightId, k -> new ArrayList<>()).addAll(freed);
+                    }
+                    releasedAfterFailure(flightId, freed);
+                }
             }
         }
+        seatRepo.bookHeld(booked);
+        seatRepo.releaseHeld(released);
+        bookingRepo.settlePayments(settlements);
+        return rejected;
+    }
+
+    private void releasedAfterFailure(Long flightId, List<String> released) {
+        if (released.isEmpty()) return;
+        seatMap.changed(flightId, released, SeatStatus.HELD, SeatStatus.AVAILABLE);
+        seatCounts.changed(flightId, released, SeatStatus.HELD, SeatStatus.AVAILABLE);
     }
 
+    // all or none of a booking's seats; in db mode against the locked HELD set, claimed seats leave it
+    private int bookSeats(Long flightId, List<String> labels, Long bookingId,
+                          Map<Long, Set<String>> held, List<SeatRepositoryCustom.SeatBooking> booked) {
+        if (inventory.isEnabled()) return inventory.book(flightId, labels, bookingId);
+        Set<String> stillHeld = held.getOrDefault(flightId, Collections.emptySet());
+        int changed = (int) labels.stream().filter(stillHeld::contains).count();
+        if (changed != labels.size()) return changed;
+        stillHeld.removeAll(labels);
+        for (String label : labels) booked.add(new SeatRepositoryCustom.SeatBooking(flightId, label, bookingId));
+        return changed;
+    }
+
+    /* the response of one hold of a batch, or the seat conflict it was refused with */
+    public record HoldOutcome(Object response, SeatConflictException conflict) {
+    }
+
+    // a hold of holdBatch failed; getCause() is what it threw
+    public static class HoldBatchFailure extends RuntimeException {
+        private final int index;
+
+        HoldBatchFailure(int index, RuntimeException cause) {
+            super(cause);
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+    }
 
-    private String generatePnr(Integer flightId) {
-        String ts = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
-        String rnd = UUID.randomUUID().toString().replaceAll("-", "").substring(0, 4).toUpperCase();
-        String flightPart = (flightId == null) ? "" : String.valueOf(flightId % 100);
-        String tail = ts.length() > 6 ? ts.substring(ts.length() - 6) : ts;
-        return flightPart + tail + rnd;
+    /* one payment confirmation of a batch */
+    public record Confirmation(Integer bookingId, boolean success, String txnRef) {
     }
 
     /* HoldResponse DTO (uses Integer bookingId to match Booking.id) */
@@ -219,6 +527,9 @@ public class BookingService {
         private String pnr;
         private BigDecimal amount;
         private LocalDateTime expiresAt;
+        // set for auto-assigned holds only
+        private List<String> seats;
+        private Boolean together;
 
         public HoldResponse(Integer bookingId, String pnr, BigDecimal amount, LocalDateTime expiresAt) {
             this.bookingId = bookingId;
@@ -227,9 +538,17 @@ public class BookingService {
             this.expiresAt = expiresAt;
         }
 
+        HoldResponse withSeats(List<String> seats, boolean together) {
+            this.seats = seats;
+            this.together = together;
+            return this;
+        }
+
         public Integer getBookingId() { return bookingId; }
         public String getPnr() { return pnr; }
         public BigDecimal getAmount() { return amount; }
         public LocalDateTime getExpiresAt() { return expiresAt; }
+        public List<String> getSeats() { return seats; }
+        public Boolean getTogether() { return together; }
     }
 }
@@ -0,0 +1,176 @@
+package com.example.airline.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for payment confirmations (airline.confirm.pipeline.enabled=true).
+ *
+ * Callers put their confirmation on a bounded queue and wait. airline.confirm.pipeline.writers
+ * threads each take up to airline.confirm.pipeline.batch-size queued confirmations and apply them
+ * with {@link BookingService#confirmPayments} in one transaction, so a burst of confirmations
+ * costs one commit per batch instead of one each. Every caller gets its own result: confirmations
+ * that cannot be applied fail alone and the rest of the batch commits. If the batch transaction
+ * itself fails (e.g. a deadlock), its confirmations are retried one by one.
+ *
+ * When disabled, or when the queue is full, confirm runs confirmPayment on the caller's thread.
+ */
+@Service
+public class ConfirmationPipeline {
+
+    private final BookingService bookingService;
+    private final BookingMetrics metrics;
+    private final boolean enabled;
+    private final int writers;
+    private final int batchSize;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public ConfirmationPipeline(BookingService bookingService,
+                                BookingMetrics metrics,
+                                @Value("${airline.confirm.pipeline.enabled:false}") boolean enabled,
+                                @Value("${airline.confirm.pipeline.writers:2}") int writers,
+                                @Value("${airline.confirm.pipeline.batch-size:64}") int batchSize,
+                                @Value("${airline.confirm.pipeline.queue-capacity:1024}") int queueCapacity) {
+        this.bookingService = bookingService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.writers = Math.max(1, writers);
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Confirm a payment and wait for its batch to commit. Throws what confirmPayment would throw.
+     */
+    public void confirm(Integer bookingId, boolean success, String txnRef) {
+        Request request = new Request(new BookingService.Confirmation(bookingId, success, txnRef));
+        // stopped after the offer: whatever stop() no longer drained is taken back and run here
+        if (!running || !queue.offer(request) || (!running && queue.remove(request))) {
+            bookingService.confirmPayment(bookingId, success, txnRef);
+            return;
+        }
+        try {
+            request.result.get();
+        } catch (InterruptedException ex) {
+            // the confirmation still goes through with its batch; only this caller stops waiting
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for payment confirmation of booking " + bookingId);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) return;
+        running = true;
+        for (int i = 0; i < writers; i++) {
+            Thread t = new Thread(this::drain, "confirm-writer-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    // stop taking new work, let the writers finish their batch, then apply what is still queued
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) return;
+        running = false;
+        for (Thread t : threads) t.join(10_000);
+        threads.clear();
+        List<Request> rest = new ArrayList<>();
+        while (queue.drainTo(rest, batchSize) > 0) {
+            apply(rest);
+            rest.clear();
+        }
+    }
+
+    private void drain() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (running) {
+            Request first;
+            try {
+                // polled rather than taken, so stop() never has to interrupt a writer inside JDBC
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (first == null) continue;
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            apply(batch);
+            batch.clear();
+        }
+    }
+
+    private void apply(List<Request> batch) {
+        List<BookingService.Confirmation> confirmations = new ArrayList<>(batch.size());
+        List<CompletableFuture<Void>> results = new ArrayList<>(batch.size());
+        for (Request r : batch) {
+            confirmations.add(r.confirmation);
+            results.add(r.result);
+        }
+        applyBatch(bookingService, metrics, confirmations, results);
+    }
+
+    /**
+     * Apply confirmations in one transaction and complete results.get(i) with the outcome of
+     * confirmations.get(i); if the transaction fails as a whole, apply them one by one instead.
+     */
+    static void applyBatch(BookingService bookingService, BookingMetrics metrics,
+                           List<BookingService.Confirmation> confirmations, List<CompletableFuture<Void>> results) {
+        List<RuntimeException> rejected;
+        try {
+            rejected = bookingService.confirmPayments(confirmations);
+        } catch (RuntimeException ex) {
+            applyOneByOne(bookingService, confirmations, results);
+            return;
+        }
+        // only batches that committed; a failed one is counted as its single confirmations
+        metrics.confirmBatch(confirmations.size());
+        for (int i = 0; i < confirmations.size(); i++) {
+            if (rejected.get(i) == null) {
+                results.get(i).complete(null);
+            } else {
+                results.get(i).completeExceptionally(rejected.get(i));
+            }
+        }
+    }
+
+    private static void applyOneByOne(BookingService bookingService, List<BookingService.Confirmation> confirmations,
+                                      List<CompletableFuture<Void>> results) {
+        for (int i = 0; i < confirmations.size(); i++) {
+            BookingService.Confirmation c = confirmations.get(i);
+            try {
+                bookingService.confirmPayment(c.bookingId(), c.success(), c.txnRef());
+                results.get(i).complete(null);
+            } catch (RuntimeException ex) {
+                results.get(i).completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class Request {
+        final BookingService.Confirmation confirmation;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Request(BookingService.Confirmation confirmation) {
+            this.confirmation = confirmation;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.airline.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-flight admission control for holds (airline.admission.enabled=true), so one flight in a
+ * flash sale cannot take every pooled connection from search and the other flights.
+ *
+ * Each flight has a token bucket: airline.admission.rate-per-second holds per second, bursts of up
+ * to airline.admission.burst. A hold that finds no token reserves the next one and waits for it,
+ * which makes the waiting room first come, first served; its position is how many reservations
+ * are ahead of it. A hold is rejected right away, without waiting, when the waiting room already
+ * holds airline.admission.queue-capacity holds or its turn is more than airline.admission.max-wait-ms
+ * away. The rejection carries the position it would have had and when to retry.
+ *
+ * Waiting parks the request thread before any transaction opens: cheap with virtual threads, and
+ * bounded by queue-capacity per flight otherwise.
+ */
+@Component
+public class FlightAdmission {
+
+    private final boolean enabled;
+    private final double tokensPerNano;
+    private final double burst;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final BookingMetrics metrics;
+    private final LongSupplier nanoClock;
+
+    // one bucket per flight that was ever held on; a bucket is two numbers
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FlightAdmission(@Value("${airline.admission.enabled:false}") boolean enabled,
+                           @Value("${airline.admission.rate-per-second:50}") double ratePerSecond,
+                           @Value("${airline.admission.burst:50}") int burst,
+                           @Value("${airline.admission.queue-capacity:100}") int queueCapacity,
+                           @Value("${airline.admission.max-wait-ms:2000}") long maxWaitMillis,
+                           BookingMetrics metrics) {
+        this(enabled, ratePerSecond, burst, queueCapacity, maxWaitMillis, metrics, System::nanoTime);
+    }
+
+    FlightAdmission(boolean enabled, double ratePerSecond, int burst, int queueCapacity, long maxWaitMillis,
+                    BookingMetrics metrics, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("airline.admission.rate-per-second must be positive");
+        this.enabled = enabled;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.metrics = metrics;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Admit one hold on the flight, waiting in its queue if needed. Returns the decision; when it
+     * is not admitted nothing was reserved and the caller should answer 429.
+     */
+    public Decision admit(long flightId) {
+        if (!enabled) return Decision.ADMITTED;
+        Decision d = reserve(flightId);
+        if (d.admitted()) {
+            if (d.waitNanos() > 0) {
+                long until = nanoClock.getAsLong() + d.waitNanos();
+                for (long left = d.waitNanos(); left > 0; left = until - nanoClock.getAsLong()) {
+                    LockSupport.parkNanos(left);
+                    if (Thread.currentThread().isInterrupted()) break;
+                }
+            }
+            if (metrics != null) metrics.admission(d.waitNanos() > 0 ? "queued" : "immediate", d.waitNanos());
+        } else if (metrics != null) {
+            metrics.admission("rejected", 0);
+        }
+        return d;
+    }
+
+    // takes a token or a place in the queue, or decides to reject; never waits
+    Decision reserve(long flightId) {
+        Bucket b = buckets.computeIfAbsent(flightId, k -> new Bucket(burst, nanoClock.getAsLong()));
+        synchronized (b) {
+            long now = nanoClock.getAsLong();
+            b.tokens = Math.min(burst, b.tokens + (now - b.refilledAt) * tokensPerNano);
+            b.refilledAt = now;
+            if (b.tokens >= 1) {
+                b.tokens -= 1;
+                return Decision.ADMITTED;
+            }
+            // tokens below zero are reservations already handed out; each one is a hold ahead of us
+            int position = (int) Math.ceil(-b.tokens) + 1;
+            long waitNanos = (long) Math.ceil((1 - b.tokens) / tokensPerNano);
+            if (position > queueCapacity || waitNanos > maxWaitNanos) {
+                return new Decision(false, 0, position, retryAfterSeconds(waitNanos));
+            }
+            b.tokens -= 1;
+            return new Decision(true, waitNanos, position, 0);
+        }
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (long) Math.ceil(waitNanos / 1e9));
+    }
+
+    /*
+     * Outcome of one admission. position is the place in the flight's queue (0 = no queue);
+     * waitNanos how long an admitted hold waited for its turn; retryAfterSeconds when a rejected
+     * one should come back.
+     */
+    public record Decision(boolean admitted, long waitNanos, int position, long retryAfterSeconds) {
+        static final Decision ADMITTED = new Decision(true, 0, 0, 0);
+    }
+
+    private static final class Bucket {
+        // may go negative: one token of debt per hold waiting in the queue
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.airline.service;
+
+import com.example.airline.repository.FlightRepository;
+import com.example.airline.repository.FlightView;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flight listing that never materialises the whole schedule:
+ * keyset pages through the repository, or a forward-only JDBC cursor written straight out as JSON.
+ */
+@Service
+public class FlightListingService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final FlightRepository flightRepo;
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper mapper;
+
+    public FlightListingService(FlightRepository flightRepo, JdbcTemplate jdbc, ObjectMapper mapper) {
+        this.flightRepo = flightRepo;
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+    }
+
+    /**
+     * One page of flights with id > after, ordered by id. Any filter may be null.
+     */
+    public FlightPage page(Integer after, int limit, String origin, String destination,
+                           LocalDateTime from, LocalDateTime to) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<FlightView> items = flightRepo.findPage(after == null ? 0 : after, origin, destination, from, to,
+                PageRequest.of(0, size));
+        Integer next = items.size() < size ? null : items.get(items.size() - 1).id();
+        return new FlightPage(items, next);
+    }
+
+    /**
+     * Write matching flights as a JSON array, one row at a time.
+     */
+    @Transactional(readOnly = true)
+    public void stream(OutputStream out, String origin, String destination,
+                       LocalDateTime from, LocalDateTime to) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, airline, flight_no, origin, destination, departure, arrival, price, seats_total, seats_available " +
+                "FROM flights WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (origin != null) { sql.append(" AND origin = ?"); args.add(origin); }
+        if (destination != null) { sql.append(" AND destination = ?"); args.add(destination); }
+        if (from != null) { sql.append(" AND departure >= ?"); args.add(Timestamp.valueOf(from)); }
+        if (to != null) { sql.append(" AND departure < ?"); args.add(Timestamp.valueOf(to)); }
+        sql.append(" ORDER BY id");
+
+        out.write('[');
+        boolean[] first = {true};
+        try {
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Connector/J only streams rows with this sentinel; other drivers take a normal fetch size
+                boolean mysql = con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+                ps.setFetchSize(mysql ? Integer.MIN_VALUE : 500);
+                for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+                return ps;
+            }, rs -> {
+                try {
+                    if (!first[0]) out.write(',');
+                    first[0] = false;
+                    out.write(mapper.writeValueAsBytes(mapRow(rs)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.write(']');
+        out.flush();
+    }
+
+    private static FlightView mapRow(ResultSet rs) throws SQLException {
+        Timestamp dep = rs.getTimestamp("departure");
+        Timestamp arr = rs.getTimestamp("arrival");
+        return new FlightView(
+                rs.getInt("id"),
+                rs.getString("airline"),
+                rs.getString("flight_no"),
+                rs.getString("origin"),
+                rs.getString("destination"),
+                dep == null ? null : dep.toLocalDateTime(),
+                arr == null ? null : arr.toLocalDateTime(),
+                rs.getObject("price") == null ? null : rs.getDouble("price"),
+                rs.getObject("seats_total") == null ? null : rs.getInt("seats_total"),
+                rs.getObject("seats_available") == null ? null : rs.getInt("seats_available"));
+    }
+
+    /* FlightPage DTO: nextCursor is the id to pass as `after`, null on the last page */
+    public static class FlightPage {
+        private final List<FlightView> items;
+        private final Integer nextCursor;
+
+        public FlightPage(List<FlightView> items, Integer nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<FlightView> getItems() { return items; }
+        public Integer getNextCursor() { return nextCursor; }
+    }
+}
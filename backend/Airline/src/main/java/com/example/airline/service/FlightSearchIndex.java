@@ -0,0 +1,138 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.FlightSeatCount;
+import com.example.airline.entity.SeatClass;
+import com.example.airline.repository.FlightRepository;
+import com.example.airline.repository.FlightSeatCountRepository;
+import com.example.airline.repository.FlightView;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory route index for flight search.
+ * Each (origin, destination) maps to an array of immutable FlightView rows sorted by departure;
+ * a date range is two binary searches. Arrays are copy-on-write, so readers never lock.
+ * Route keys are upper-cased to match MySQL's case-insensitive comparison.
+ * Rows carry seatsAvailable and per-class availability from flight_seat_counts,
+ * refreshed by SeatCountService after every counter flush.
+ */
+@Service
+public class FlightSearchIndex {
+
+    private static final Comparator<FlightView> BY_DEPARTURE =
+            Comparator.comparing(FlightView::departure).thenComparing(FlightView::id);
+
+    private final FlightRepository flightRepo;
+    private final FlightSeatCountRepository countRepo;
+
+    private volatile Map<String, FlightView[]> routes = Map.of();
+    private volatile boolean ready;
+
+    public FlightSearchIndex(FlightRepository flightRepo, FlightSeatCountRepository countRepo) {
+        this.flightRepo = flightRepo;
+        this.countRepo = countRepo;
+    }
+
+    public boolean isReady() { return ready; }
+
+    /**
+     * Flights on the route departing within [start, end], or null until the index is loaded.
+     */
+    public List<FlightView> search(String origin, String destination, LocalDateTime start, LocalDateTime end) {
+        if (!ready) return null;
+        FlightView[] flights = routes.get(key(origin, destination));
+        if (flights == null) return List.of();
+        List<FlightView> out = new ArrayList<>();
+        for (int i = lowerBound(flights, start); i < flights.length && !flights[i].departure().isAfter(end); i++) {
+            out.add(flights[i]);
+        }
+        return out;
+    }
+
+    // full (re)load; also picks up flights edited outside the app
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${airline.search.reload-interval-ms:300000}", initialDelayString = "${airline.search.reload-interval-ms:300000}")
+    public synchronized void reload() {
+        Map<Integer, List<FlightSeatCount>> counts = new HashMap<>();
+        for (FlightSeatCount c : countRepo.findAll()) {
+            counts.computeIfAbsent(c.getFlightId().intValue(), k -> new ArrayList<>()).add(c);
+        }
+        Map<String, List<FlightView>> grouped = new HashMap<>();
+        for (FlightView f : flightRepo.findAllViews()) {
+            if (f.departure() == null) continue;
+            List<FlightSeatCount> c = counts.get(f.id());
+            if (c != null) f = withCounts(f, c);
+            grouped.computeIfAbsent(key(f.origin(), f.destination()), k -> new ArrayList<>()).add(f);
+        }
+        Map<String, FlightView[]> next = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((k, list) -> {
+            FlightView[] arr = list.toArray(new FlightView[0]);
+            Arrays.sort(arr, BY_DEPARTURE);
+            next.put(k, arr);
+        });
+        routes = next;
+        ready = true;
+    }
+
+    /**
+     * Replace seatsAvailable and the per-class availability of the given flights, in one copy.
+     * Flights that are not indexed are ignored.
+     */
+    public synchronized void updateAvailability(Map<Integer, List<FlightSeatCount>> countsByFlight) {
+        if (!ready || countsByFlight.isEmpty()) return;
+        Map<String, FlightView[]> nextRoutes = null;
+        for (Map.Entry<String, FlightView[]> e : routes.entrySet()) {
+            FlightView[] arr = e.getValue();
+            FlightView[] next = null;
+            for (int i = 0; i < arr.length; i++) {
+                List<FlightSeatCount> counts = countsByFlight.get(arr[i].id());
+                if (counts == null) continue;
+                if (next == null) next = arr.clone();
+                next[i] = withCounts(arr[i], counts);
+            }
+            if (next == null) continue;
+            if (nextRoutes == null) nextRoutes = new HashMap<>(routes);
+            nextRoutes.put(e.getKey(), next);
+        }
+        if (nextRoutes != null) routes = nextRoutes;
+    }
+
+    // seatsAvailable counts every seat not booked; per class only the ones that can be held now
+    private static FlightView withCounts(FlightView f, List<FlightSeatCount> counts) {
+        Map<SeatClass, Integer> byClass = new EnumMap<>(SeatClass.class);
+        int notBooked = 0;
+        for (FlightSeatCount c : counts) {
+            byClass.put(c.getSeatClass(), Math.max(0, c.getAvailable()));
+            notBooked += c.getAvailable() + c.getHeld();
+        }
+        return f.withAvailability(Math.max(0, notBooked), Collections.unmodifiableMap(byClass));
+    }
+
+    private static int lowerBound(FlightView[] flights, LocalDateTime start) {
+        int lo = 0, hi = flights.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (flights[mid].departure().isBefore(start)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static String key(String origin, String destination) {
+        return (origin == null ? "" : origin.trim().toUpperCase(Locale.ROOT)) + "|"
+                + (destination == null ? "" : destination.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.airline.service;
+
+import com.example.airline.repository.SeatRepository;
+import com.example.airline.repository.SeatRepositoryCustom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks live seat holds in a {@link HoldExpiryWheel} so expiry work scales with active holds.
+ * Fed by BookingService, drained by HoldReleaseScheduler, rebuilt from hold_expires_at on startup.
+ */
+@Service
+public class HoldExpiryService {
+
+    private final SeatRepository seatRepo;
+    private final HoldExpiryWheel wheel;
+
+    public HoldExpiryService(SeatRepository seatRepo,
+                             @Value("${airline.holds.tick-ms:1000}") long tickMillis) {
+        this.seatRepo = seatRepo;
+        this.wheel = new HoldExpiryWheel(tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Track a hold once the surrounding transaction commits.
+     */
+    public void schedule(Long bookingId, Long flightId, List<String> labels, LocalDateTime expires) {
+        HoldExpiryWheel.HoldEntry entry =
+                new HoldExpiryWheel.HoldEntry(bookingId, flightId, List.copyOf(labels), SeatInventoryService.toMillis(expires));
+        AfterCommit.run(() -> add(entry));
+    }
+
+    /**
+     * Stop tracking a booking's hold (paid or released) once the surrounding transaction commits;
+     * if it rolls back, the seats are still HELD and the hold keeps its expiry.
+     */
+    public void cancel(Long bookingId) {
+        AfterCommit.run(() -> remove(bookingId));
+    }
+
+    /**
+     * Expired holds grouped by flight.
+     */
+    public Map<Long, List<String>> pollExpired(LocalDateTime now) {
+        List<HoldExpiryWheel.HoldEntry> expired;
+        synchronized (this) {
+            expired = wheel.advance(SeatInventoryService.toMillis(now));
+        }
+        Map<Long, List<String>> byFlight = new HashMap<>();
+        for (HoldExpiryWheel.HoldEntry e : expired) {
+            byFlight.computeIfAbsent(e.getFlightId(), k -> new ArrayList<>()).addAll(e.getLabels());
+        }
+        return byFlight;
+    }
+
+    public synchronized Map<Long, Integer> liveSeatsByFlight() {
+        return new HashMap<>(wheel.liveSeatsByFlight());
+    }
+
+    // once per booking: the startup rebuild and a hold committed while it runs may both add it
+    private synchronized void add(HoldExpiryWheel.HoldEntry entry) {
+        if (entry.getBookingId() != null && wheel.isTracked(entry.getBookingId())) return;
+        wheel.add(entry);
+    }
+
+    private synchronized void remove(Long bookingId) {
+        wheel.cancel(bookingId);
+    }
+
+    // rebuild from the seats table; holds already past expiry come out on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<String, HoldExpiryWheel.HoldEntry> grouped = new HashMap<>();
+        for (SeatRepositoryCustom.HeldSeat s : seatRepo.findHeldWithBooking()) {
+            if (s.holdExpiresAt() == null) continue;
+            long expires = SeatInventoryService.toMillis(s.holdExpiresAt());
+            String key = s.bookingId() != null ? "booking:" + s.bookingId() : s.flightId() + ":" + expires;
+            grouped.computeIfAbsent(key,
+                            k -> new HoldExpiryWheel.HoldEntry(s.bookingId(), s.flightId(), new ArrayList<>(), expires))
+                    .getLabels().add(s.seatLabel());
+        }
+        for (HoldExpiryWheel.HoldEntry e : grouped.values()) {
+            add(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.airline.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for seat-hold expiry.
+ * Level 0 has 64 one-tick slots, each higher level covers 64x the span of the one below
+ * (3 levels with a 1s tick reach ~3 days). Entries cascade down a level when their block
+ * comes up, so advancing costs O(expiring holds) rather than O(all seats).
+ * Not thread-safe on its own; {@link HoldExpiryService} serialises access.
+ */
+public class HoldExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    private final long tickMillis;
+    private final List<List<HoldEntry>>[] wheels;
+    private final List<HoldEntry> overflow = new ArrayList<>();
+    private final Map<Long, HoldEntry> byBooking = new HashMap<>();
+    private final Map<Long, Integer> liveSeatsByFlight = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HoldExpiryWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new List[LEVELS];
+        for (int l = 0; l < LEVELS; l++) {
+            List<List<HoldEntry>> slots = new ArrayList<>(SLOTS);
+            for (int i = 0; i < SLOTS; i++) slots.add(new ArrayList<>());
+            wheels[l] = slots;
+        }
+    }
+
+    /**
+     * Add a hold. Entries already due are returned by the next {@link #advance} call.
+     */
+    public void add(HoldEntry entry) {
+        if (entry.bookingId != null) byBooking.put(entry.bookingId, entry);
+        liveSeatsByFlight.merge(entry.flightId, entry.labels.size(), Integer::sum);
+        place(entry);
+    }
+
+    public boolean isTracked(Long bookingId) {
+        return byBooking.containsKey(bookingId);
+    }
+
+    /**
+     * Forget the hold for a booking (confirmed or released before expiry).
+     */
+    public void cancel(Long bookingId) {
+        HoldEntry entry = byBooking.remove(bookingId);
+        if (entry == null || entry.cancelled) return;
+        entry.cancelled = true;
+        forget(entry);
+    }
+
+    /**
+     * Move the wheel to nowMillis and return every live hold that expired on the way.
+     */
+    public List<HoldEntry> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<HoldEntry> expired = new ArrayList<>();
+        // entries placed at or before the current tick
+        drain(wheels[0].get((int) (currentTick & SLOT_MASK)), expired);
+        while (currentTick < target) {
+            currentTick++;
+            // top-down, so entries cascading from a higher level land in slots handled below
+            if ((currentTick & ((1L << (SLOT_BITS * (LEVELS - 1))) - 1)) == 0) {
+                cascade(overflow);
+            }
+            for (int l = LEVELS - 1; l >= 1; l--) {
+                if ((currentTick & ((1L << (SLOT_BITS * l)) - 1)) == 0) {
+                    cascade(wheels[l].get((int) ((currentTick >>> (SLOT_BITS * l)) & SLOT_MASK)));
+                }
+            }
+            drain(wheels[0].get((int) (currentTick & SLOT_MASK)), expired);
+        }
+        return expired;
+    }
+
+    public Map<Long, Integer> liveSeatsByFlight() {
+        return liveSeatsByFlight;
+    }
+
+    private void place(HoldEntry entry) {
+        long tick = Math.max(currentTick, (entry.expiresAtMillis + tickMillis - 1) / tickMillis);
+        for (int l = 0; l < LEVELS; l++) {
+            int parentShift = SLOT_BITS * (l + 1);
+            if ((tick >>> parentShift) == (currentTick >>> parentShift)) {
+                wheels[l].get((int) ((tick >>> (SLOT_BITS * l)) & SLOT_MASK)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private void cascade(List<HoldEntry> slot) {
+        if (slot.isEmpty()) return;
+        List<HoldEntry> moving = new ArrayList<>(slot);
+        slot.clear();
+        for (HoldEntry e : moving) {
+            if (!e.cancelled) place(e);
+        }
+    }
+
+    private void drain(List<HoldEntry> slot, List<HoldEntry> out) {
+        if (slot.isEmpty()) return;
+        for (HoldEntry e : slot) {
+            if (e.cancelled) continue;
+            if (e.bookingId != null) byBooking.remove(e.bookingId);
+            forget(e);
+            out.add(e);
+        }
+        slot.clear();
+    }
+
+    private void forget(HoldEntry entry) {
+        liveSeatsByFlight.computeIfPresent(entry.flightId, (k, v) -> v - entry.labels.size() <= 0 ? null : v - entry.labels.size());
+    }
+
+    /**
+     * Seats of one flight held until the same instant. bookingId is null for holds
+     * rebuilt from the seats table, which does not record the booking of a HELD seat.
+     */
+    public static class HoldEntry {
+        final Long bookingId;
+        final Long flightId;
+        final List<String> labels;
+        final long expiresAtMillis;
+        boolean cancelled;
+
+        public HoldEntry(Long bookingId, Long flightId, List<String> labels, long expiresAtMillis) {
+            this.bookingId = bookingId;
+            this.flightId = flightId;
+            this.labels = labels;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public Long getBookingId() { return bookingId; }
+        public Long getFlightId() { return flightId; }
+        public List<String> getLabels() { return labels; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+}
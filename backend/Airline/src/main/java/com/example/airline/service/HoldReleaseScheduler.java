@@ -1,23 +1,89 @@
 package com.example.airline.service;
 
+import com.example.airline.entity.SeatStatus;
 import com.example.airline.repository.SeatRepository;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class HoldReleaseScheduler {
 
     private final SeatRepository seatRepo;
+    private final SeatInventoryService inventory;
+    private final HoldExpiryService holdExpiry;
+    private final SeatMapService seatMap;
+    private final SeatCountService seatCounts;
+    private final BookingMetrics metrics;
+    private final BookingJournal journal;
 
-    public HoldReleaseScheduler(SeatRepository seatRepo) {
+    public HoldReleaseScheduler(SeatRepository seatRepo,
+                                SeatInventoryService inventory,
+                                HoldExpiryService holdExpiry,
+                                SeatMapService seatMap,
+                                SeatCountService seatCounts,
+                                BookingMetrics metrics,
+                                BookingJournal journal) {
         this.seatRepo = seatRepo;
+        this.inventory = inventory;
+        this.holdExpiry = holdExpiry;
+        this.seatMap = seatMap;
+        this.seatCounts = seatCounts;
+        this.metrics = metrics;
+        this.journal = journal;
     }
 
-    // run every 60 seconds to release expired holds
-    @Scheduled(fixedDelay = 60000)
+    // every tick: release holds the timing wheel reports as expired, one batch per flight
+    @Scheduled(fixedDelayString = "${airline.holds.tick-ms:1000}")
     public void releaseExpiredHolds() {
-        seatRepo.releaseExpired(LocalDateTime.now());
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (Map.Entry<Long, List<String>> e : holdExpiry.pollExpired(now).entrySet()) {
+            if (inventory.isEnabled()) {
+                // memory mode owns seat state; released seats are written behind
+                List<String> released = inventory.releaseExpired(e.getKey(), e.getValue(), now);
+                if (!released.isEmpty()) {
+                    seatMap.changed(e.getKey(), released, SeatStatus.HELD, SeatStatus.AVAILABLE);
+                    seatCounts.changed(e.getKey(), released, SeatStatus.HELD, SeatStatus.AVAILABLE);
+                    journal.expired(e.getKey(), released, now);
+                }
+                total += released.size();
+                continue;
+            }
+            int released = seatRepo.releaseExpiredSeats(e.getKey(), e.getValue(), now);
+            // same condition as the UPDATE, so replay releases exactly what it released
+            if (released > 0) journal.expired(e.getKey(), e.getValue(), now);
+            if (released == e.getValue().size()) {
+                seatMap.changed(e.getKey(), e.getValue(), SeatStatus.HELD, SeatStatus.AVAILABLE);
+                seatCounts.changed(e.getKey(), e.getValue(), SeatStatus.HELD, SeatStatus.AVAILABLE);
+            } else if (released > 0) {
+                // some of the seats were already booked or released; which ones is not known here
+                seatMap.changedUnknown(e.getKey());
+                seatCounts.changedUnknown(e.getKey());
+            }
+            total += released;
+        }
+        metrics.holdsReleased("wheel", total, System.nanoTime() - start);
+        metrics.liveHolds(holdExpiry.liveSeatsByFlight());
+    }
+
+    // safety net for holds the wheel never saw; uses idx_seats_status_expiry
+    @Scheduled(fixedDelayString = "${airline.holds.sweep-interval-ms:900000}")
+    public void sweepExpiredHolds() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int released = inventory.isEnabled()
+                ? inventory.releaseExpired(now)
+                : seatRepo.releaseExpired(now);
+        if (released > 0) {
+            seatMap.changedAll();
+            seatCounts.changedAll();
+            journal.swept(now);
+        }
+        metrics.holdsReleased("sweep", released, System.nanoTime() - start);
     }
 }
@@ -0,0 +1,157 @@
+package com.example.airline.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Responses of requests sent with an Idempotency-Key, so a retried hold or payment confirmation
+ * replays the first result instead of running its transaction again.
+ *
+ * The first request with a key runs; duplicates that arrive while it is in flight wait for its
+ * response (up to airline.idempotency.wait-ms, then 409). Completed responses are kept for
+ * airline.idempotency.ttl-seconds, and at most airline.idempotency.max-entries keys are kept,
+ * oldest dropped first. 5xx responses and exceptions are not kept, so a retry runs again.
+ * Reusing a key with a different request gets 422. Keys live in this process only.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final BookingMetrics metrics;
+    private final LongSupplier clock;
+
+    // insertion order = expiry order, since every entry lives for the same ttl
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @Autowired
+    public IdempotencyStore(@Value("${airline.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${airline.idempotency.ttl-seconds:3600}") long ttlSeconds,
+                            @Value("${airline.idempotency.wait-ms:10000}") long waitMillis,
+                            BookingMetrics metrics) {
+        this(maxEntries, ttlSeconds * 1000, waitMillis, metrics, System::currentTimeMillis);
+    }
+
+    IdempotencyStore(int maxEntries, long ttlMillis, long waitMillis, BookingMetrics metrics, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Run action once per key. fingerprint identifies the request body; a duplicate with a different
+     * fingerprint is rejected.
+     */
+    public ResponseEntity<?> execute(String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        long now = clock.getAsLong();
+        Entry mine = new Entry(fingerprint, now + ttlMillis);
+        Entry first;
+        synchronized (this) {
+            evictExpired(now);
+            first = entries.putIfAbsent(key, mine);
+            if (first == null) trim();
+        }
+        if (first != null) return replay(first, fingerprint);
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            forget(key, mine);
+            mine.result.completeExceptionally(ex);
+            throw ex;
+        }
+        if (response.getStatusCode().is5xxServerError()) forget(key, mine);
+        mine.result.complete(response);
+        metrics.idempotency("executed");
+        return response;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private ResponseEntity<?> replay(Entry first, String fingerprint) {
+        if (!first.fingerprint.equals(fingerprint)) {
+            metrics.idempotency("mismatch");
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT)
+                    .body(Map.of("message", HEADER + " was already used for a different request"));
+        }
+        ResponseEntity<?> response;
+        try {
+            response = first.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return inProgress();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException ex) {
+            // the first attempt threw; it is not stored, so the client's next retry runs again
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+        metrics.idempotency("replayed");
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private ResponseEntity<?> inProgress() {
+        metrics.idempotency("in_progress");
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "A request with this " + HEADER + " is still in progress"));
+    }
+
+    private synchronized void forget(String key, Entry entry) {
+        entries.remove(key, entry);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.expiresAt > now) return;
+            it.remove();
+        }
+    }
+
+    // in-flight entries can go too; their duplicates then simply run again
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.airline.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry of the booking journal. Binary layout of the payload (big-endian):
+ *
+ *   long seq, long timeMillis, byte type, long flightId, long bookingId (0 = none),
+ *   long expiresAtMillis (hold expiry, or the cutoff of EXPIRED/SWEPT; 0 = none),
+ *   short labelCount, labelCount x (byte length, UTF-8 bytes)
+ *
+ * On disk every payload is preceded by its length and CRC32C (see {@link JournalSegments}).
+ */
+public record JournalEvent(long seq, long timeMillis, Type type, long flightId, long bookingId,
+                           long expiresAtMillis, List<String> labels) {
+
+    public enum Type {
+        // seats held for a booking until expiresAtMillis
+        HELD,
+        // held seats paid for
+        BOOKED,
+        // payment failed; the booking's held seats are released
+        PAYMENT_FAILED,
+        // listed seats released if still held with an expiry at or before expiresAtMillis (hold expiry)
+        EXPIRED,
+        // every seat held with an expiry at or before expiresAtMillis released (fallback sweep; no labels)
+        SWEPT
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    byte[] encode() {
+        List<byte[]> encoded = new ArrayList<>(labels.size());
+        int size = 8 + 8 + 1 + 8 + 8 + 8 + 2;
+        for (String label : labels) {
+            byte[] b = label.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 255) throw new IllegalArgumentException("Seat label too long: " + label);
+            encoded.add(b);
+            size += 1 + b.length;
+        }
+        if (labels.size() > Short.MAX_VALUE) throw new IllegalArgumentException("Too many seats in one event: " + labels.size());
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putLong(seq).putLong(timeMillis).put((byte) type.ordinal())
+                .putLong(flightId).putLong(bookingId).putLong(expiresAtMillis)
+                .putShort((short) labels.size());
+        for (byte[] b : encoded) {
+            buf.put((byte) b.length).put(b);
+        }
+        return buf.array();
+    }
+
+    // payload must already have passed its CRC check
+    static JournalEvent decode(ByteBuffer payload) {
+        long seq = payload.getLong();
+        long time = payload.getLong();
+        Type type = TYPES[payload.get()];
+        long flightId = payload.getLong();
+        long bookingId = payload.getLong();
+        long expiresAt = payload.getLong();
+        int n = payload.getShort();
+        List<String> labels = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            byte[] b = new byte[payload.get() & 0xff];
+            payload.get(b);
+            labels.add(new String(b, StandardCharsets.UTF_8));
+        }
+        return new JournalEvent(seq, time, type, flightId, bookingId, expiresAt, labels);
+    }
+}
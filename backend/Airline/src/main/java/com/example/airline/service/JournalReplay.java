@@ -0,0 +1,141 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rebuilds seat state from a booking journal: the last known status, booking and hold expiry of
+ * every seat the journal mentions. Seats it never mentions are not in the result.
+ *
+ * Also a command-line tool (plain JDK, no Spring context):
+ *
+ *   java -cp target/classes com.example.airline.service.JournalReplay data/journal [--flight=ID] [--sql]
+ *
+ * prints per-flight seat counts, the seats of one flight with --flight, and with --sql the UPDATE
+ * statements that put the seats table in the journaled state.
+ */
+public final class JournalReplay {
+
+    private JournalReplay() {
+    }
+
+    public static Result replay(Path dir) throws IOException {
+        Map<Long, Map<String, SeatState>> seats = new HashMap<>();
+        long events = 0;
+        long lastSeq = 0;
+        int damaged = 0;
+        int segments = 0;
+        for (Path segment : JournalSegments.list(dir)) {
+            segments++;
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                long[] last = {lastSeq};
+                JournalSegments.Scan scan = JournalSegments.scan(buf, e -> {
+                    apply(seats, e);
+                    last[0] = e.seq();
+                });
+                events += scan.events();
+                lastSeq = last[0];
+                if (scan.damaged()) damaged++;
+            }
+        }
+        return new Result(seats, events, segments, damaged, lastSeq);
+    }
+
+    // same conditions as the SQL the event stands for
+    static void apply(Map<Long, Map<String, SeatState>> seats, JournalEvent e) {
+        if (e.type() == JournalEvent.Type.SWEPT) {
+            for (Map<String, SeatState> f : seats.values()) {
+                f.replaceAll((label, s) -> s.status() == SeatStatus.HELD && s.holdExpiresAtMillis() <= e.expiresAtMillis()
+                        ? s.released() : s);
+            }
+            return;
+        }
+        Map<String, SeatState> flight = seats.computeIfAbsent(e.flightId(), k -> new HashMap<>());
+        for (String label : e.labels()) {
+            SeatState s = flight.get(label);
+            switch (e.type()) {
+                case HELD -> flight.put(label, new SeatState(SeatStatus.HELD, e.bookingId(), e.expiresAtMillis()));
+                case BOOKED -> flight.put(label, new SeatState(SeatStatus.BOOKED, e.bookingId(), 0));
+                case PAYMENT_FAILED -> {
+                    // only the failed booking's own hold: events are journaled after commit, so a
+                    // newer hold on the seat by another booking can come before this event
+                    if (s == null) flight.put(label, SeatState.AVAILABLE);
+                    else if (s.status() == SeatStatus.HELD && s.bookingId() == e.bookingId()) flight.put(label, s.released());
+                }
+                case EXPIRED -> {
+                    if (s == null) flight.put(label, SeatState.AVAILABLE);
+                    else if (s.status() == SeatStatus.HELD && s.holdExpiresAtMillis() <= e.expiresAtMillis()) flight.put(label, s.released());
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: JournalReplay <journal-dir> [--flight=ID] [--sql]");
+            System.exit(2);
+        }
+        Long flightFilter = null;
+        boolean sql = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--flight=")) flightFilter = Long.parseLong(args[i].substring("--flight=".length()));
+            else if (args[i].equals("--sql")) sql = true;
+            else throw new IllegalArgumentException("Unknown option: " + args[i]);
+        }
+        Result r = replay(Paths.get(args[0]));
+        System.out.printf("segments=%d events=%d last-seq=%d damaged-segments=%d%n",
+                r.segments(), r.events(), r.lastSeq(), r.damagedSegments());
+        for (Map.Entry<Long, Map<String, SeatState>> f : new TreeMap<>(r.seats()).entrySet()) {
+            if (flightFilter != null && !flightFilter.equals(f.getKey())) continue;
+            Map<SeatStatus, Integer> counts = new EnumMap<>(SeatStatus.class);
+            for (SeatState s : f.getValue().values()) counts.merge(s.status(), 1, Integer::sum);
+            System.out.printf("flight %d: %d seats seen, available=%d held=%d booked=%d%n", f.getKey(), f.getValue().size(),
+                    counts.getOrDefault(SeatStatus.AVAILABLE, 0), counts.getOrDefault(SeatStatus.HELD, 0),
+                    counts.getOrDefault(SeatStatus.BOOKED, 0));
+            for (Map.Entry<String, SeatState> s : new TreeMap<>(f.getValue()).entrySet()) {
+                if (flightFilter != null) {
+                    System.out.printf("  %-5s %-9s booking=%d%n", s.getKey(), s.getValue().status(), s.getValue().bookingId());
+                }
+                if (sql) System.out.println(s.getValue().toSql(f.getKey(), s.getKey()));
+            }
+        }
+    }
+
+    /* last journaled state of one seat; bookingId and holdExpiresAtMillis are 0 when unknown/none */
+    public record SeatState(SeatStatus status, long bookingId, long holdExpiresAtMillis) {
+
+        static final SeatState AVAILABLE = new SeatState(SeatStatus.AVAILABLE, 0, 0);
+
+        // release keeps the booking id, like the SQL does
+        SeatState released() {
+            return new SeatState(SeatStatus.AVAILABLE, bookingId, 0);
+        }
+
+        String toSql(long flightId, String label) {
+            String expires = holdExpiresAtMillis == 0 ? "NULL" : "'" + new Timestamp(holdExpiresAtMillis) + "'";
+            // seats rows carry the booking only once booked
+            String booking = status == SeatStatus.BOOKED && bookingId != 0 ? Long.toString(bookingId) : "booking_id";
+            return "UPDATE seats SET status = '" + status + "', booking_id = " + booking + ", hold_expires_at = " + expires
+                    + " WHERE flight_id = " + flightId + " AND seat_label = '" + label.replace("'", "''") + "';";
+        }
+    }
+
+    /* seat state by flight and label, plus what was read */
+    public record Result(Map<Long, Map<String, SeatState>> seats, long events, int segments, int damagedSegments,
+                         long lastSeq) {
+    }
+}
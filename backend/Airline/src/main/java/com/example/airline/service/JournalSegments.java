@@ -0,0 +1,84 @@
+package com.example.airline.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout of the booking journal, shared by the writer and the replay tool.
+ *
+ * A journal is a directory of fixed-size segment files named after the sequence number of their
+ * first event, so name order is event order. A segment starts with an 8-byte header (magic,
+ * version) followed by records of (int payloadLength, int crc32c(payload), payload). A zero
+ * length marks the end of the written part; a record whose length or CRC does not check out
+ * ends the segment as well.
+ */
+final class JournalSegments {
+
+    static final int MAGIC = 0x424A4E4C; // "BJNL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_OVERHEAD = 8;
+    static final String SUFFIX = ".journal";
+
+    private JournalSegments() {
+    }
+
+    static Path path(Path dir, long firstSeq) {
+        return dir.resolve(String.format("%020d", firstSeq) + SUFFIX);
+    }
+
+    static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    // segment files in event order; empty if the directory does not exist
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("\\d{20}" + SUFFIX.replace(".", "\\.")))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static int crc(ByteBuffer buf, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Read the records of one segment, in order, into sink. Stops at the end marker or at the
+     * first damaged record.
+     */
+    static Scan scan(ByteBuffer segment, Consumer<JournalEvent> sink) {
+        if (segment.limit() < HEADER_BYTES || segment.getInt(0) != MAGIC || segment.getInt(4) != VERSION) {
+            return new Scan(0, 0, true);
+        }
+        int pos = HEADER_BYTES;
+        int events = 0;
+        while (pos + RECORD_OVERHEAD <= segment.limit()) {
+            int length = segment.getInt(pos);
+            if (length == 0) return new Scan(pos, events, false);
+            if (length < 0 || pos + RECORD_OVERHEAD + length > segment.limit()
+                    || crc(segment, pos + RECORD_OVERHEAD, length) != segment.getInt(pos + 4)) {
+                return new Scan(pos, events, true);
+            }
+            sink.accept(JournalEvent.decode(segment.slice(pos + RECORD_OVERHEAD, length)));
+            events++;
+            pos += RECORD_OVERHEAD + length;
+        }
+        return new Scan(pos, events, false);
+    }
+
+    /* where the valid part of a segment ends, how many events it holds, and whether it ended on damage */
+    record Scan(int end, int events, boolean damaged) {
+    }
+}
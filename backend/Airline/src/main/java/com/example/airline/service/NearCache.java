@@ -0,0 +1,98 @@
+package com.example.airline.service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded read-through cache: at most maxEntries values, least recently used dropped first, each
+ * value kept for ttlMillis after it was loaded. Absent values (loader returned null) are not kept.
+ *
+ * Loads run outside the lock, so two misses on one key may both load. A value loaded while an
+ * invalidation ran is returned but not kept, so an invalidation is never undone by a slow load.
+ */
+final class NearCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    // access order: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // bumped by every invalidation; a load only stores its value if this did not move meanwhile
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    NearCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    V get(K key, Function<K, V> loader) {
+        long now = clock.getAsLong();
+        long loadedAt;
+        synchronized (this) {
+            Entry<V> e = entries.get(key);
+            if (e != null && e.expiresAt > now) {
+                hits.increment();
+                return e.value;
+            }
+            if (e != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+            loadedAt = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value == null) return null;
+        synchronized (this) {
+            if (generation == loadedAt) {
+                entries.put(key, new Entry<>(value, now + ttlMillis));
+                trim();
+            }
+        }
+        return value;
+    }
+
+    synchronized void invalidate(Collection<? extends K> keys) {
+        generation++;
+        for (K key : keys) entries.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long hits() { return hits.sum(); }
+
+    long misses() { return misses.sum(); }
+
+    // entries dropped for size or age; invalidations are not counted
+    long evictions() { return evictions.sum(); }
+
+    private void trim() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.airline.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Six-character PNRs: five base-32 characters of payload plus a Luhn mod 32 check character.
+ *
+ * The 25-bit payload space is split into airline.pnr.nodes equal ranges (a power of two, at most
+ * 32). Each backend takes the range of its airline.pnr.node and hands out a monotonic
+ * sequence inside it, so nodes never collide and no allocation touches the DB. The alphabet is
+ * in ASCII order, so string order equals sequence order. On first use the sequence continues
+ * after MAX(pnr) of the node's range, which keeps it unique across restarts and if the node
+ * count changes.
+ */
+@Component
+public class PnrAllocator {
+
+    // no 0/O or 1/I; ascending ASCII
+    static final char[] ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+    static final int PAYLOAD_CHARS = 5;
+    static final long PAYLOAD_SPACE = 1L << (5 * PAYLOAD_CHARS);
+
+    private static final int[] VALUE_OF = new int[128];
+
+    static {
+        Arrays.fill(VALUE_OF, -1);
+        for (int i = 0; i < ALPHABET.length; i++) VALUE_OF[ALPHABET[i]] = i;
+    }
+
+    private final JdbcTemplate jdbc;
+    private final long first;
+    private final long end;
+    private final AtomicLong next = new AtomicLong();
+    private volatile boolean seeded;
+
+    public PnrAllocator(JdbcTemplate jdbc,
+                        @Value("${airline.pnr.node:0}") int node,
+                        @Value("${airline.pnr.nodes:1}") int nodes) {
+        if (nodes < 1 || nodes > 32 || Integer.bitCount(nodes) != 1) {
+            throw new IllegalArgumentException("airline.pnr.nodes must be a power of two between 1 and 32: " + nodes);
+        }
+        if (node < 0 || node >= nodes) {
+            throw new IllegalArgumentException("airline.pnr.node must be in [0, " + nodes + "): " + node);
+        }
+        long span = PAYLOAD_SPACE / nodes;
+        this.jdbc = jdbc;
+        this.first = node * span;
+        this.end = first + span;
+    }
+
+    /**
+     * Next PNR of this node. Lock-free after the first call; throws IllegalStateException once the
+     * node's range is used up.
+     */
+    public String next() {
+        if (!seeded) seed();
+        long value = next.getAndIncrement();
+        if (value >= end) {
+            throw new IllegalStateException("PNR range of this node is exhausted; configure a free airline.pnr.node");
+        }
+        return format(value);
+    }
+
+    // continue after the highest PNR already stored in this node's range
+    private synchronized void seed() {
+        if (seeded) return;
+        String sql = "SELECT MAX(pnr) FROM bookings WHERE CHAR_LENGTH(pnr) = 6 AND pnr >= ?"
+                + (end < PAYLOAD_SPACE ? " AND pnr < ?" : "");
+        Object[] args = end < PAYLOAD_SPACE
+                ? new Object[]{payload(first), payload(end)}
+                : new Object[]{payload(first)};
+        String max = jdbc.queryForObject(sql, String.class, args);
+        long start = first;
+        if (max != null && isValid(max)) start = Math.max(first, decode(max) + 1);
+        next.set(start);
+        seeded = true;
+    }
+
+    /**
+     * PNR for a payload value: the value in base 32 (most significant first) plus its check character.
+     */
+    static String format(long value) {
+        char[] out = new char[PAYLOAD_CHARS + 1];
+        long v = value;
+        for (int i = PAYLOAD_CHARS - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (v & 31)];
+            v >>>= 5;
+        }
+        out[PAYLOAD_CHARS] = ALPHABET[checkValue(out)];
+        return new String(out);
+    }
+
+    /**
+     * True for a well-formed PNR whose check character matches (catches any single mistyped
+     * character and most adjacent swaps).
+     */
+    static boolean isValid(String pnr) {
+        if (pnr == null || pnr.length() != PAYLOAD_CHARS + 1) return false;
+        char[] chars = pnr.toCharArray();
+        for (char c : chars) {
+            if (c >= 128 || VALUE_OF[c] < 0) return false;
+        }
+        return ALPHABET[checkValue(chars)] == chars[PAYLOAD_CHARS];
+    }
+
+    static long decode(String pnr) {
+        long v = 0;
+        for (int i = 0; i < PAYLOAD_CHARS; i++) v = (v << 5) | VALUE_OF[pnr.charAt(i)];
+        return v;
+    }
+
+    private static String payload(long value) {
+        return format(value).substring(0, PAYLOAD_CHARS);
+    }
+
+    // Luhn mod N over the payload characters
+    private static int checkValue(char[] chars) {
+        int sum = 0;
+        boolean dbl = true;
+        for (int i = PAYLOAD_CHARS - 1; i >= 0; i--) {
+            int addend = VALUE_OF[chars[i]];
+            if (dbl) {
+                addend *= 2;
+                addend = addend / 32 + addend % 32;
+            }
+            sum += addend;
+            dbl = !dbl;
+        }
+        return (32 - sum % 32) % 32;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.airline.service;
+
+import com.example.airline.repository.FlightRepository;
+import com.example.airline.repository.FlightView;
+import com.example.airline.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Near cache of the reference data a hold checks before it touches a seat: that the user and the
+ * flight exist. With airline.reference-cache.enabled=true (the default) repeated holds on a flight
+ * stop paying two lookups each.
+ *
+ * Flights are kept as FlightView rows, users only as "exists" (never the password hash). Each cache
+ * is bounded by max-entries (least recently used dropped first) and ttl-seconds, which also bounds
+ * how long an edit made outside the app goes unseen. Flights are invalidated whenever the app
+ * writes their seats_available. Unknown ids are not cached, so a new user or flight is seen at once.
+ */
+@Service
+public class ReferenceCache {
+
+    private final boolean enabled;
+    private final FlightRepository flightRepo;
+    private final UserRepository userRepo;
+    private final NearCache<Integer, FlightView> flights;
+    private final NearCache<Integer, Boolean> users;
+
+    public ReferenceCache(@Value("${airline.reference-cache.enabled:true}") boolean enabled,
+                          @Value("${airline.reference-cache.flight.max-entries:10000}") int flightEntries,
+                          @Value("${airline.reference-cache.flight.ttl-seconds:60}") long flightTtlSeconds,
+                          @Value("${airline.reference-cache.user.max-entries:100000}") int userEntries,
+                          @Value("${airline.reference-cache.user.ttl-seconds:300}") long userTtlSeconds,
+                          FlightRepository flightRepo,
+                          UserRepository userRepo,
+                          BookingMetrics metrics) {
+        this.enabled = enabled;
+        this.flightRepo = flightRepo;
+        this.userRepo = userRepo;
+        this.flights = new NearCache<>(flightEntries, flightTtlSeconds * 1000, System::currentTimeMillis);
+        this.users = new NearCache<>(userEntries, userTtlSeconds * 1000, System::currentTimeMillis);
+        if (enabled) {
+            metrics.nearCache("flight", flights);
+            metrics.nearCache("user", users);
+        }
+    }
+
+    /**
+     * The flight, or IllegalArgumentException if there is none.
+     */
+    public FlightView requireFlight(Integer flightId) {
+        FlightView flight = enabled
+                ? flights.get(flightId, id -> flightRepo.findViewById(id).orElse(null))
+                : flightRepo.findViewById(flightId).orElse(null);
+        if (flight == null) throw new IllegalArgumentException("Flight not found: " + flightId);
+        return flight;
+    }
+
+    /**
+     * Throws IllegalArgumentException if there is no such user.
+     */
+    public void requireUser(Integer userId) {
+        boolean exists = enabled
+                ? users.get(userId, id -> userRepo.existsById(id) ? Boolean.TRUE : null) != null
+                : userRepo.existsById(userId);
+        if (!exists) throw new IllegalArgumentException("User not found: " + userId);
+    }
+
+    // seats_available of these flights was written
+    public void flightsChanged(Collection<Integer> flightIds) {
+        if (enabled && !flightIds.isEmpty()) flights.invalidate(flightIds);
+    }
+
+    public void allFlightsChanged() {
+        if (enabled) flights.invalidateAll();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatClass;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Picks seats for "N seats in class X, together if possible".
+ *
+ * The seats of the class are grouped by row; each row is a bitmap of its free seats in column order
+ * (rows wider than 64 seats only offer their first 64). The maximal runs of set bits are the blocks
+ * of adjacent free seats. A group goes into the smallest block that fits it (the front-most of
+ * those), so big blocks stay whole for big groups. When no block fits, the group is split over
+ * the fewest consecutive rows that hold enough free seats, taking the biggest blocks there first.
+ */
+final class SeatAllocator {
+
+    private SeatAllocator() {
+    }
+
+    /**
+     * Seats to claim, or an empty plan when the class has fewer than count free seats.
+     * free tells whether the seat at a layout index can be assigned.
+     */
+    static Plan plan(SeatMapService.SeatLayout layout, SeatClass seatClass, int count, IntPredicate free) {
+        if (count <= 0) return Plan.NONE;
+        List<Row> rows = rows(layout, seatClass, free);
+
+        // 1) one block: smallest that fits, earliest on ties
+        Run best = null;
+        int available = 0;
+        for (Row row : rows) {
+            for (Run run : row.runs()) {
+                available += run.length;
+                if (run.length >= count && (best == null || run.length < best.length)) best = run;
+            }
+        }
+        if (best != null) return new Plan(best.labels(layout, count), true);
+        if (available < count) return Plan.NONE;
+
+        // 2) fewest consecutive rows with enough seats, earliest on ties
+        int bestFrom = -1;
+        int bestTo = -1;
+        for (int from = 0; from < rows.size(); from++) {
+            int seats = 0;
+            for (int to = from; to < rows.size(); to++) {
+                if (to > from && rows.get(to).number != rows.get(to - 1).number + 1) break;
+                seats += rows.get(to).freeSeats();
+                if (seats >= count) {
+                    if (bestFrom < 0 || to - from < bestTo - bestFrom) {
+                        bestFrom = from;
+                        bestTo = to;
+                    }
+                    break;
+                }
+            }
+        }
+        List<Run> runs = new ArrayList<>();
+        if (bestFrom < 0) {
+            // gaps in the row numbers: no window of consecutive rows is big enough, so use them all
+            bestFrom = 0;
+            bestTo = rows.size() - 1;
+        }
+        for (int r = bestFrom; r <= bestTo; r++) runs.addAll(rows.get(r).runs());
+        // biggest blocks first; the sort is stable, so front rows win ties
+        runs.sort(Comparator.comparingInt((Run run) -> run.length).reversed());
+        List<String> labels = new ArrayList<>(count);
+        for (Run run : runs) {
+            if (labels.size() == count) break;
+            labels.addAll(run.labels(layout, count - labels.size()));
+        }
+        return new Plan(labels, false);
+    }
+
+    // rows holding seats of the class, front to back, with their free-seat bitmaps
+    private static List<Row> rows(SeatMapService.SeatLayout layout, SeatClass seatClass, IntPredicate free) {
+        TreeMap<Integer, Row> rows = new TreeMap<>();
+        for (int i = 0; i < layout.getLabels().size(); i++) {
+            Integer number = layout.getRows().get(i);
+            if (number == null || layout.getClasses().get(i) != seatClass) continue;
+            Row row = rows.computeIfAbsent(number, Row::new);
+            // layout order is row, then column, so seats arrive in column order
+            int bit = row.seats.size();
+            row.seats.add(i);
+            if (bit < 64 && free.test(i)) row.free |= 1L << bit;
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    /* labels to claim; together = all in one block of adjacent seats */
+    record Plan(List<String> labels, boolean together) {
+        static final Plan NONE = new Plan(List.of(), false);
+
+        boolean isEmpty() { return labels.isEmpty(); }
+    }
+
+    private static final class Row {
+        final int number;
+        // layout index of each seat, by position in the row
+        final List<Integer> seats = new ArrayList<>();
+        long free;
+
+        Row(int number) {
+            this.number = number;
+        }
+
+        int freeSeats() {
+            return Long.bitCount(free);
+        }
+
+        // maximal runs of adjacent free seats, left to right
+        List<Run> runs() {
+            List<Run> runs = new ArrayList<>();
+            long m = free;
+            while (m != 0) {
+                int start = Long.numberOfTrailingZeros(m);
+                int length = Long.numberOfTrailingZeros(~(m >>> start));
+                runs.add(new Run(this, start, length));
+                m &= length == 64 ? 0 : ~(((1L << length) - 1) << start);
+            }
+            return runs;
+        }
+    }
+
+    private record Run(Row row, int start, int length) {
+        List<String> labels(SeatMapService.SeatLayout layout, int max) {
+            List<String> labels = new ArrayList<>(Math.min(max, length));
+            for (int b = start; b < start + length && labels.size() < max; b++) {
+                labels.add(layout.getLabels().get(row.seats.get(b)));
+            }
+            return labels;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.airline.service;
+
+import java.util.List;
+
+/**
+ * Thrown when some requested seats could not be claimed.
+ * Carries exactly the labels that were unavailable (or unknown) so clients can re-pick; empty when
+ * the server picked the seats and could not find enough.
+ */
+public class SeatConflictException extends IllegalStateException {
+
+    private final List<String> conflicts;
+
+    public SeatConflictException(List<String> conflicts) {
+        super("Seat not available: " + String.join(",", conflicts));
+        this.conflicts = conflicts;
+    }
+
+    public SeatConflictException(String message, List<String> conflicts) {
+        super(message);
+        this.conflicts = conflicts;
+    }
+
+    public List<String> getConflicts() { return conflicts; }
+}
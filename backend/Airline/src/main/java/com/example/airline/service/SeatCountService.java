@@ -0,0 +1,312 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.FlightSeatCount;
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
+import com.example.airline.repository.FlightSeatCountRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-flight, per-class seat counters (flight_seat_counts: available, held, booked).
+ *
+ * Every hold/release/book/expiry records its delta once the booking transaction commits. Deltas
+ * are merged in memory and applied each flush as one batch of atomic "col = col + ?" updates,
+ * and booked seats come off flights.seats_available the same way. Bookings therefore never
+ * read-modify-write a counter and never wait on a counter row lock. After a flush the search
+ * index picks up the new figures and the reference cache drops its copies of those flights.
+ *
+ * A recount from the seats table overwrites the counters of a flight whenever its transitions
+ * are not known seat by seat, after seeding, at startup and periodically. Deltas are numbered as
+ * they are recorded, after their commit; a recount notes the last number before it reads, and
+ * the deltas up to it are already in what it reads, so they are dropped rather than applied on
+ * top of it. Only a transition caught between its commit and recording its delta can still be
+ * counted twice, until the next recount. The periodic recount runs on the shared scheduler
+ * (spring.task.scheduling.pool.size), so while it runs only the counter flush waits for it.
+ */
+@Service
+public class SeatCountService {
+
+    private static final String DELTA_SQL =
+            "UPDATE flight_seat_counts SET available = available + ?, held = held + ?, booked = booked + ? " +
+            "WHERE flight_id = ? AND seat_class = ?";
+    private static final String BOOKED_SQL =
+            "UPDATE flights SET seats_available = seats_available - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final FlightSeatCountRepository countRepo;
+    private final SeatMapService seatMap;
+    private final SeatInventoryService inventory;
+    private final FlightSearchIndex searchIndex;
+    private final ReferenceCache references;
+
+    // label -> class per flight; layouts never change once seeded
+    private final Map<Long, Map<String, SeatClass>> classes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Delta> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // last delta number each flight's (or every flight's) latest recount already covers; flush only
+    private final Map<Long, Long> countedUpTo = new HashMap<>();
+    private long allCountedUpTo;
+    // flights to recount on the next flush; recountAll covers every flight
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    private volatile boolean recountAll;
+    // merged deltas from a failed flush; applied ahead of newer ones on the next attempt
+    private Map<CountKey, int[]> retry = new LinkedHashMap<>();
+
+    public SeatCountService(JdbcTemplate jdbc,
+                            FlightSeatCountRepository countRepo,
+                            SeatMapService seatMap,
+                            SeatInventoryService inventory,
+                            FlightSearchIndex searchIndex,
+                            ReferenceCache references) {
+        this.jdbc = jdbc;
+        this.countRepo = countRepo;
+        this.seatMap = seatMap;
+        this.inventory = inventory;
+        this.searchIndex = searchIndex;
+        this.references = references;
+    }
+
+    /**
+     * Count a seat transition once the current transaction commits.
+     */
+    public void changed(Long flightId, List<String> labels, SeatStatus from, SeatStatus to) {
+        AfterCommit.run(() -> record(flightId, labels, from, to));
+    }
+
+    /**
+     * Seats of a flight changed but not individually known; the flight is recounted.
+     */
+    public void changedUnknown(Long flightId) {
+        AfterCommit.run(() -> stale.add(flightId));
+    }
+
+    /**
+     * Something changed on every flight (e.g. the fallback expiry sweep); everything is recounted.
+     */
+    public void changedAll() {
+        AfterCommit.run(() -> recountAll = true);
+    }
+
+    /**
+     * Recount flights from their seat rows now (e.g. right after their seats were created).
+     */
+    public void recount(Collection<Long> flightIds) {
+        if (flightIds.isEmpty()) return;
+        stale.addAll(flightIds);
+        flush();
+    }
+
+    // safety net for lost or double-counted deltas, and the initial fill on startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${airline.seat-counts.reconcile-interval-ms:300000}",
+            initialDelayString = "${airline.seat-counts.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        recountAll = true;
+        flush();
+    }
+
+    /**
+     * Apply the queued deltas as one batch, then recount stale flights and refresh the search index.
+     */
+    @Scheduled(fixedDelayString = "${airline.seat-counts.flush-interval-ms:200}")
+    @PreDestroy
+    public synchronized void flush() {
+        Set<Long> touched = new HashSet<>();
+        if (!pending.isEmpty() || !retry.isEmpty()) {
+            touched.addAll(applyDeltas());
+        }
+        boolean all = recountAll;
+        if (all) {
+            recountAll = false;
+            stale.clear();
+            recountFlights(null);
+        } else if (!stale.isEmpty()) {
+            List<Long> ids = new ArrayList<>(stale);
+            stale.removeAll(ids);
+            touched.addAll(recountFlights(ids));
+        }
+        if (!all && touched.isEmpty()) return;
+        // seats_available of these flights moved
+        if (all) references.allFlightsChanged();
+        else references.flightsChanged(touched.stream().map(Long::intValue).toList());
+        Map<Integer, List<FlightSeatCount>> byFlight = new HashMap<>();
+        for (FlightSeatCount c : all ? countRepo.findAll() : countRepo.findByFlightIdIn(touched)) {
+            byFlight.computeIfAbsent(c.getFlightId().intValue(), k -> new ArrayList<>()).add(c);
+        }
+        searchIndex.updateAvailability(byFlight);
+    }
+
+    private void record(Long flightId, List<String> labels, SeatStatus from, SeatStatus to) {
+        Map<String, SeatClass> classes = classesOf(flightId);
+        Map<SeatClass, Integer> seats = new EnumMap<>(SeatClass.class);
+        for (String label : labels) {
+            SeatClass seatClass = classes.get(label);
+            if (seatClass == null) {
+                stale.add(flightId);
+                return;
+            }
+            seats.merge(seatClass, 1, Integer::sum);
+        }
+        long seq = sequence.incrementAndGet();
+        seats.forEach((seatClass, n) -> pending.add(new Delta(new CountKey(flightId, seatClass), from, to, n, seq)));
+    }
+
+    private Map<String, SeatClass> classesOf(Long flightId) {
+        Map<String, SeatClass> cached = classes.get(flightId);
+        if (cached != null) return cached;
+        SeatMapService.SeatLayout layout = seatMap.layout(flightId);
+        Map<String, SeatClass> loaded = new HashMap<>(layout.getLabels().size() * 2);
+        for (int i = 0; i < layout.getLabels().size(); i++) {
+            loaded.put(layout.getLabels().get(i), layout.getClasses().get(i));
+        }
+        // same rule as the layout cache: an empty one may still be seeding
+        if (!loaded.isEmpty()) classes.put(flightId, loaded);
+        return loaded;
+    }
+
+    // returns the flights whose counters moved
+    private Set<Long> applyDeltas() {
+        Map<CountKey, int[]> merged = retry;
+        retry = new LinkedHashMap<>();
+        Delta d;
+        while ((d = pending.poll()) != null) {
+            if (d.seq <= Math.max(allCountedUpTo, countedUpTo.getOrDefault(d.key.flightId, 0L))) continue;
+            int[] sum = merged.computeIfAbsent(d.key, k -> new int[3]);
+            sum[slot(d.from)] -= d.seats;
+            sum[slot(d.to)] += d.seats;
+        }
+        List<Object[]> countArgs = new ArrayList<>(merged.size());
+        List<CountKey> keys = new ArrayList<>(merged.size());
+        Map<Long, Integer> bookedByFlight = new LinkedHashMap<>();
+        for (Map.Entry<CountKey, int[]> e : merged.entrySet()) {
+            int[] sum = e.getValue();
+            if (sum[0] == 0 && sum[1] == 0 && sum[2] == 0) continue;
+            CountKey k = e.getKey();
+            keys.add(k);
+            countArgs.add(new Object[]{sum[0], sum[1], sum[2], k.flightId, k.seatClass.name()});
+            if (sum[2] != 0) bookedByFlight.merge(k.flightId, sum[2], Integer::sum);
+        }
+        List<Object[]> bookedArgs = new ArrayList<>(bookedByFlight.size());
+        bookedByFlight.forEach((flightId, booked) -> bookedArgs.add(new Object[]{booked, flightId}));
+        if (keys.isEmpty()) return Collections.emptySet();
+        int[] updated;
+        try {
+            updated = jdbc.batchUpdate(DELTA_SQL, countArgs);
+        } catch (RuntimeException ex) {
+            retry = merged;
+            throw ex;
+        }
+        try {
+            if (!bookedArgs.isEmpty()) jdbc.batchUpdate(BOOKED_SQL, bookedArgs);
+        } catch (RuntimeException ex) {
+            // the counters are in; a recount puts seats_available right
+            stale.addAll(bookedByFlight.keySet());
+            throw ex;
+        }
+        Set<Long> touched = new HashSet<>();
+        for (int i = 0; i < keys.size(); i++) {
+            touched.add(keys.get(i).flightId);
+            // no counter row yet (flight not counted so far); the recount creates it
+            if (updated[i] == 0) stale.add(keys.get(i).flightId);
+        }
+        return touched;
+    }
+
+    /**
+     * Overwrite the counters and flights.seats_available of the given flights (null = all)
+     * with what the seats table holds. Returns the flights recounted.
+     */
+    private Set<Long> recountFlights(Collection<Long> flightIds) {
+        if (flightIds != null && flightIds.isEmpty()) return Collections.emptySet();
+        // every delta recorded so far has committed, so the read below includes it
+        long fence = sequence.get();
+        // memory mode writes seats behind; get them up to date first
+        if (inventory.isEnabled()) inventory.flush();
+
+        String where = "";
+        Object[] args = new Object[0];
+        if (flightIds != null) {
+            where = " WHERE flight_id IN (" + String.join(",", Collections.nCopies(flightIds.size(), "?")) + ")";
+            args = flightIds.toArray();
+        }
+        Map<CountKey, int[]> counted = new LinkedHashMap<>();
+        jdbc.query("SELECT flight_id, seat_class, status, COUNT(*) FROM seats" + where +
+                        " GROUP BY flight_id, seat_class, status",
+                rs -> {
+                    String seatClass = rs.getString(2);
+                    String status = rs.getString(3);
+                    if (seatClass == null || status == null) return;
+                    CountKey k = new CountKey(rs.getLong(1), SeatClass.valueOf(seatClass));
+                    counted.computeIfAbsent(k, x -> new int[3])[slot(SeatStatus.valueOf(status))] += rs.getInt(4);
+                }, args);
+
+        Set<CountKey> existing = new HashSet<>();
+        jdbc.query("SELECT flight_id, seat_class FROM flight_seat_counts" + where,
+                rs -> { existing.add(new CountKey(rs.getLong(1), SeatClass.valueOf(rs.getString(2)))); }, args);
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        Map<Long, Integer> notBooked = new LinkedHashMap<>();
+        for (Map.Entry<CountKey, int[]> e : counted.entrySet()) {
+            CountKey k = e.getKey();
+            int[] c = e.getValue();
+            Object[] row = {c[0] + c[1] + c[2], c[0], c[1], c[2], k.flightId, k.seatClass.name()};
+            (existing.contains(k) ? updates : inserts).add(row);
+            notBooked.merge(k.flightId, c[0] + c[1], Integer::sum);
+        }
+        if (!updates.isEmpty()) {
+            jdbc.batchUpdate("UPDATE flight_seat_counts SET seats_total = ?, available = ?, held = ?, booked = ? " +
+                    "WHERE flight_id = ? AND seat_class = ?", updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO flight_seat_counts (seats_total, available, held, booked, flight_id, seat_class) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", inserts);
+        }
+        List<Object[]> flights = new ArrayList<>(notBooked.size());
+        notBooked.forEach((flightId, seats) -> flights.add(new Object[]{seats, flightId}));
+        if (!flights.isEmpty()) jdbc.batchUpdate("UPDATE flights SET seats_available = ? WHERE id = ?", flights);
+
+        // what is still queued up to the fence, or left from a failed flush, is in these counts now
+        if (flightIds == null) {
+            allCountedUpTo = fence;
+            countedUpTo.clear();
+            retry.clear();
+        } else {
+            for (Long id : flightIds) countedUpTo.put(id, fence);
+            retry.keySet().removeIf(k -> flightIds.contains(k.flightId));
+        }
+        return notBooked.keySet();
+    }
+
+    // counter columns in (available, held, booked) order
+    private static int slot(SeatStatus status) {
+        if (status == SeatStatus.HELD) return 1;
+        if (status == SeatStatus.BOOKED) return 2;
+        return 0;
+    }
+
+    private record CountKey(Long flightId, SeatClass seatClass) {
+    }
+
+    private record Delta(CountKey key, SeatStatus from, SeatStatus to, int seats, long seq) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans seat status deltas out to per-flight SSE subscribers.
+ * Emitters are servlet-async, so an idle subscriber holds no thread. Deltas are coalesced per
+ * seat and flushed on a short interval: a burst of transitions becomes one event per flight,
+ * serialised once and queued to every subscriber.
+ *
+ * Each subscriber has its own outbox, written by at most one sender at a time, so its events
+ * arrive in version order and a slow client only delays itself. A client whose outbox reaches
+ * airline.seat-events.outbox-capacity is disconnected; on reconnect its "hello" tells it to refetch.
+ */
+@Service
+public class SeatEventHub {
+
+    private final ObjectMapper mapper;
+    private final long emitterTimeoutMs;
+    private final int outboxCapacity;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, PendingDeltas> pending = new ConcurrentHashMap<>();
+    // writes to slow clients block, so they happen off the flush thread
+    // (the shared application executor, which runs on virtual threads when those are enabled)
+    private final TaskExecutor senders;
+
+    public SeatEventHub(ObjectMapper mapper,
+                        @Qualifier("applicationTaskExecutor") TaskExecutor senders,
+                        @Value("${airline.seat-events.timeout-ms:1800000}") long emitterTimeoutMs,
+                        @Value("${airline.seat-events.outbox-capacity:64}") int outboxCapacity) {
+        this.mapper = mapper;
+        this.senders = senders;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.outboxCapacity = Math.max(1, outboxCapacity);
+    }
+
+    /**
+     * Subscribe to a flight. The first event carries the current version so the client can
+     * tell whether its seat map is already stale.
+     */
+    public SseEmitter subscribe(Long flightId, long currentVersion) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber sub = new Subscriber(flightId, emitter);
+        Runnable remove = () -> unsubscribe(sub);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        // queued before it is visible to flush, so "hello" is always first
+        sub.offer("hello", mapper.writeValueAsString(Map.of("flightId", flightId, "version", currentVersion)));
+        subscribers.compute(flightId, (k, set) -> {
+            if (set == null) set = new CopyOnWriteArraySet<>();
+            set.add(sub);
+            return set;
+        });
+        sub.kick();
+        return emitter;
+    }
+
+    public int subscriberCount(Long flightId) {
+        Set<Subscriber> set = subscribers.get(flightId);
+        return set == null ? 0 : set.size();
+    }
+
+    /**
+     * Queue a transition; it goes out with the next flush. Nothing is queued without subscribers.
+     */
+    public void publish(Long flightId, long version, List<String> labels, SeatStatus from, SeatStatus to) {
+        if (subscriberCount(flightId) == 0) return;
+        // compute, so a flush dropping an empty entry cannot lose this delta
+        pending.compute(flightId, (k, p) -> {
+            if (p == null) p = new PendingDeltas();
+            p.add(version, labels, from, to);
+            return p;
+        });
+    }
+
+    /**
+     * Tell a flight's subscribers to refetch (changes whose seats are not known individually).
+     */
+    public void resync(Long flightId, long version) {
+        if (subscriberCount(flightId) == 0) return;
+        pending.compute(flightId, (k, p) -> {
+            if (p == null) p = new PendingDeltas();
+            p.resync(version);
+            return p;
+        });
+    }
+
+    public void resyncAll(Map<Long, Long> versions) {
+        versions.forEach(this::resync);
+    }
+
+    @Scheduled(fixedDelayString = "${airline.seat-events.flush-interval-ms:100}")
+    public void flush() {
+        for (Long flightId : pending.keySet()) {
+            PendingDeltas deltas = pending.get(flightId);
+            Batch batch = deltas == null ? null : deltas.drain();
+            Set<Subscriber> set = subscribers.get(flightId);
+            if (batch == null || set == null || set.isEmpty()) {
+                // drained: drop the entry unless a publish refilled it meanwhile
+                pending.computeIfPresent(flightId, (k, p) -> p.isEmpty() ? null : p);
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("flightId", flightId);
+            payload.put("version", batch.version);
+            if (!batch.resync) payload.put("deltas", batch.deltas);
+            String json = mapper.writeValueAsString(payload);
+            String name = batch.resync ? "resync" : "seats";
+            for (Subscriber sub : set) {
+                if (sub.offer(name, json)) sub.kick();
+                else overflowed(sub);
+            }
+        }
+    }
+
+    // comment line so proxies keep idle streams open and dead clients get noticed
+    @Scheduled(fixedDelayString = "${airline.seat-events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber sub : set) {
+                // a client with events still queued gets those instead
+                if (sub.outbox.isEmpty() && sub.offer(null, null)) sub.kick();
+            }
+        }
+    }
+
+    private void overflowed(Subscriber sub) {
+        unsubscribe(sub);
+        sub.outbox.clear();
+        sub.emitter.complete();
+    }
+
+    private void unsubscribe(Subscriber sub) {
+        subscribers.computeIfPresent(sub.flightId, (k, set) -> {
+            set.remove(sub);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /* an emitter and its outbox; the sending flag makes one drain task at a time write to it */
+    private final class Subscriber {
+        final Long flightId;
+        final SseEmitter emitter;
+        final Queue<String[]> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(Long flightId, SseEmitter emitter) {
+            this.flightId = flightId;
+            this.emitter = emitter;
+        }
+
+        // name null = heartbeat comment; false when the outbox is full
+        boolean offer(String name, String json) {
+            if (queued.incrementAndGet() > outboxCapacity) {
+                queued.decrementAndGet();
+                return false;
+            }
+            outbox.add(new String[]{name, json});
+            return true;
+        }
+
+        void kick() {
+            if (sending.compareAndSet(false, true)) senders.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                String[] event;
+                while ((event = outbox.poll()) != null) {
+                    queued.decrementAndGet();
+                    if (event[0] == null) {
+                        emitter.send(SseEmitter.event().comment("hb"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event[0]).data(event[1]));
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                unsubscribe(this);
+                outbox.clear();
+                return;
+            } finally {
+                sending.set(false);
+            }
+            // an offer that came in after the last poll but saw sending=true
+            if (!outbox.isEmpty()) kick();
+        }
+    }
+
+    /* one coalesced delta: first `from` and last `to` seen for the seat in this interval */
+    public static class SeatDelta {
+        private final String label;
+        private final SeatStatus from;
+        private SeatStatus to;
+
+        SeatDelta(String label, SeatStatus from, SeatStatus to) {
+            this.label = label;
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getLabel() { return label; }
+        public SeatStatus getFrom() { return from; }
+        public SeatStatus getTo() { return to; }
+    }
+
+    private record Batch(long version, boolean resync, List<SeatDelta> deltas) {
+    }
+
+    private static class PendingDeltas {
+        private final Map<String, SeatDelta> bySeat = new LinkedHashMap<>();
+        private long version;
+        private boolean resync;
+
+        synchronized void add(long v, List<String> labels, SeatStatus from, SeatStatus to) {
+            version = Math.max(version, v);
+            for (String label : labels) {
+                SeatDelta d = bySeat.get(label);
+                if (d == null) bySeat.put(label, new SeatDelta(label, from, to));
+                else d.to = to;
+            }
+        }
+
+        synchronized void resync(long v) {
+            version = Math.max(version, v);
+            resync = true;
+        }
+
+        synchronized boolean isEmpty() {
+            return bySeat.isEmpty() && !resync;
+        }
+
+        synchronized Batch drain() {
+            if (bySeat.isEmpty() && !resync) return null;
+            List<SeatDelta> deltas = new ArrayList<>(bySeat.size());
+            for (SeatDelta d : bySeat.values()) {
+                // a hold and release inside one interval cancel out
+                if (d.from != d.to) deltas.add(d);
+            }
+            Batch b = new Batch(version, resync, deltas);
+            bySeat.clear();
+            resync = false;
+            return b.resync || !deltas.isEmpty() ? b : null;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free seat state for one flight.
+ * Every seat is one packed cell: low 2 bits hold the status, the remaining bits hold
+ * the hold expiry (epoch millis) while the seat is HELD. Multi-seat transitions claim
+ * seats one CAS at a time in index order and roll back on the first conflict, so the
+ * outcome is all-or-nothing.
+ */
+public class SeatInventory {
+
+    static final long AVAILABLE = 0;
+    static final long HELD = 1;
+    static final long BOOKED = 2;
+
+    private static final long STATE_MASK = 0b11;
+
+    private final Long flightId;
+    private final String[] labels;
+    private final Map<String, Integer> indexByLabel;
+    private final AtomicLongArray cells;
+
+    public SeatInventory(Long flightId, List<String> labels, List<SeatStatus> statuses, List<Long> holdExpiries) {
+        this.flightId = flightId;
+        this.labels = labels.toArray(new String[0]);
+        this.indexByLabel = new HashMap<>(labels.size() * 2);
+        this.cells = new AtomicLongArray(labels.size());
+        for (int i = 0; i < this.labels.length; i++) {
+            indexByLabel.put(this.labels[i], i);
+            SeatStatus status = statuses.get(i);
+            if (status == SeatStatus.HELD) {
+                Long expiry = holdExpiries.get(i);
+                cells.set(i, held(expiry == null ? 0L : expiry));
+            } else if (status == SeatStatus.BOOKED) {
+                cells.set(i, BOOKED);
+            }
+        }
+    }
+
+    public Long getFlightId() { return flightId; }
+
+    public int size() { return labels.length; }
+
+    public String labelAt(int index) { return labels[index]; }
+
+    public SeatStatus statusOf(String label) {
+        Integer idx = indexByLabel.get(label);
+        return idx == null ? null : toStatus(state(cells.get(idx)));
+    }
+
+    public SeatStatus statusAt(int index) {
+        return toStatus(state(cells.get(index)));
+    }
+
+    /**
+     * Hold all labels until expiresAtMillis, or none of them.
+     * Unknown labels count as conflicts.
+     */
+    public Claim hold(List<String> requested, long expiresAtMillis) {
+        int[] idx = resolve(requested);
+        long heldCell = held(expiresAtMillis);
+        long[] previous = new long[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            if (idx[i] < 0 || !cells.compareAndSet(idx[i], AVAILABLE, heldCell)) {
+                undo(idx, previous, heldCell, i);
+                return Claim.conflict(conflictsFor(requested, idx, i));
+            }
+            previous[i] = AVAILABLE;
+        }
+        return new Claim(this, idx, previous, heldCell, Collections.emptyList());
+    }
+
+    /**
+     * Move all labels from HELD to BOOKED, or none of them.
+     */
+    public Claim book(List<String> requested) {
+        int[] idx = resolve(requested);
+        long[] previous = new long[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            long cur = idx[i] < 0 ? -1 : cells.get(idx[i]);
+            if (idx[i] < 0 || state(cur) != HELD || !cells.compareAndSet(idx[i], cur, BOOKED)) {
+                undo(idx, previous, BOOKED, i);
+                return Claim.conflict(conflictsFor(requested, idx, i));
+            }
+            previous[i] = cur;
+        }
+        return new Claim(this, idx, previous, BOOKED, Collections.emptyList());
+    }
+
+    /**
+     * Move whichever of the labels are HELD back to AVAILABLE.
+     */
+    public Claim release(List<String> requested) {
+        int[] idx = resolve(requested);
+        List<Integer> released = new ArrayList<>(idx.length);
+        List<Long> previous = new ArrayList<>(idx.length);
+        for (int i : idx) {
+            if (i < 0) continue;
+            long cur = cells.get(i);
+            while (state(cur) == HELD) {
+                if (cells.compareAndSet(i, cur, AVAILABLE)) {
+                    released.add(i);
+                    previous.add(cur);
+                    break;
+                }
+                cur = cells.get(i);
+            }
+        }
+        int[] releasedIdx = released.stream().mapToInt(Integer::intValue).toArray();
+        long[] prev = previous.stream().mapToLong(Long::longValue).toArray();
+        return new Claim(this, releasedIdx, prev, AVAILABLE, Collections.emptyList());
+    }
+
+    /**
+     * Release every hold whose expiry is at or before nowMillis.
+     * The CAS compares the full cell (status + expiry), so a seat that was released and
+     * re-held in between is never released by a stale expiry.
+     */
+    public List<String> releaseExpired(long nowMillis) {
+        List<String> released = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            long cur = cells.get(i);
+            if (state(cur) == HELD && expiry(cur) <= nowMillis && cells.compareAndSet(i, cur, AVAILABLE)) {
+                released.add(labels[i]);
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Same as {@link #releaseExpired(long)} but only for the given labels.
+     */
+    public List<String> releaseExpired(List<String> requested, long nowMillis) {
+        int[] idx = resolve(requested);
+        List<String> released = new ArrayList<>(idx.length);
+        for (int i : idx) {
+            if (i < 0) continue;
+            long cur = cells.get(i);
+            if (state(cur) == HELD && expiry(cur) <= nowMillis && cells.compareAndSet(i, cur, AVAILABLE)) {
+                released.add(labels[i]);
+            }
+        }
+        return released;
+    }
+
+    private int[] resolve(List<String> requested) {
+        int[] idx = new int[requested.size()];
+        for (int i = 0; i < idx.length; i++) {
+            Integer found = indexByLabel.get(requested.get(i));
+            idx[i] = found == null ? -1 : found;
+        }
+        return idx;
+    }
+
+    // roll back the first `count` claimed cells that still carry the value we wrote
+    private void undo(int[] idx, long[] previous, long written, int count) {
+        for (int i = 0; i < count; i++) {
+            cells.compareAndSet(idx[i], written, previous[i]);
+        }
+    }
+
+    // the failing label plus any later label that is not available right now
+    private List<String> conflictsFor(List<String> requested, int[] idx, int failedAt) {
+        List<String> conflicts = new ArrayList<>();
+        conflicts.add(requested.get(failedAt));
+        for (int i = failedAt + 1; i < idx.length; i++) {
+            if (idx[i] < 0 || state(cells.get(idx[i])) != AVAILABLE) {
+                conflicts.add(requested.get(i));
+            }
+        }
+        return conflicts;
+    }
+
+    private static long held(long expiresAtMillis) {
+        return (expiresAtMillis << 2) | HELD;
+    }
+
+    private static long state(long cell) {
+        return cell & STATE_MASK;
+    }
+
+    static long expiry(long cell) {
+        return cell >>> 2;
+    }
+
+    private static SeatStatus toStatus(long state) {
+        if (state == HELD) return SeatStatus.HELD;
+        if (state == BOOKED) return SeatStatus.BOOKED;
+        return SeatStatus.AVAILABLE;
+    }
+
+    /**
+     * Result of a multi-seat transition. Either every seat moved (conflicts empty) or none did.
+     * A successful claim can be undone, e.g. when the surrounding DB transaction rolls back.
+     */
+    public static class Claim {
+        private final SeatInventory inventory;
+        private final int[] indices;
+        private final long[] previous;
+        private final long written;
+        private final List<String> conflicts;
+
+        private Claim(SeatInventory inventory, int[] indices, long[] previous, long written, List<String> conflicts) {
+            this.inventory = inventory;
+            this.indices = indices;
+            this.previous = previous;
+            this.written = written;
+            this.conflicts = conflicts;
+        }
+
+        static Claim conflict(List<String> conflicts) {
+            return new Claim(null, new int[0], new long[0], 0, conflicts);
+        }
+
+        public boolean isSuccess() { return conflicts.isEmpty(); }
+
+        public List<String> getConflicts() { return conflicts; }
+
+        public int size() { return indices.length; }
+
+        public List<String> getLabels() {
+            List<String> out = new ArrayList<>(indices.length);
+            for (int i : indices) out.add(inventory.labels[i]);
+            return out;
+        }
+
+        public void undo() {
+            if (inventory != null) inventory.undo(indices, previous, written, indices.length);
+        }
+
+        @Override
+        public String toString() {
+            return "Claim{indices=" + Arrays.toString(indices) + ", conflicts=" + conflicts + "}";
+        }
+    }
+}
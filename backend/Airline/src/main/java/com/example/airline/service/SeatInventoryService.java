@@ -0,0 +1,219 @@
+package com.example.airline.service;
+
+import com.example.airline.config.ReadRouting;
+import com.example.airline.entity.SeatStatus;
+import com.example.airline.repository.SeatRepository;
+import com.example.airline.repository.SeatView;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process seat inventory (airline.inventory.mode=memory).
+ * Seat transitions are decided against {@link SeatInventory} without touching the DB;
+ * the resulting seat rows are written behind in batches once the caller's transaction commits.
+ * Only valid with a single backend node, since the in-memory state is authoritative.
+ */
+@Service
+public class SeatInventoryService {
+
+    private final SeatRepository seatRepo;
+    private final JdbcTemplate jdbc;
+    private final boolean enabled;
+
+    private final Map<Long, SeatInventory> flights = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<SeatWrite> pending = new ConcurrentLinkedQueue<>();
+    // batch from a failed flush; merged ahead of newer writes on the next attempt
+    private Map<String, SeatWrite> retry = new LinkedHashMap<>();
+
+    private static final String WRITE_SQL =
+            "UPDATE seats SET status = ?, booking_id = COALESCE(?, booking_id), hold_expires_at = ? " +
+            "WHERE flight_id = ? AND seat_label = ?";
+
+    public SeatInventoryService(SeatRepository seatRepo,
+                                JdbcTemplate jdbc,
+                                @Value("${airline.inventory.mode:db}") String mode) {
+        this.seatRepo = seatRepo;
+        this.jdbc = jdbc;
+        this.enabled = "memory".equalsIgnoreCase(mode);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Inventory for a flight, loaded from the seats table on first use.
+     */
+    public SeatInventory forFlight(Long flightId) {
+        SeatInventory cached = flights.get(flightId);
+        if (cached != null) return cached;
+        SeatInventory loaded = load(flightId);
+        // no seats may mean still seeding (airline.seeding.background), so only cache real ones
+        if (loaded.size() == 0) return loaded;
+        // two first loads read the same rows; the one cached first wins
+        cached = flights.putIfAbsent(flightId, loaded);
+        return cached != null ? cached : loaded;
+    }
+
+    // always from the primary: the inventory is authoritative from here on, a lagging replica would free held seats
+    private SeatInventory load(Long flightId) {
+        boolean replica = ReadRouting.allowReplica(false);
+        List<SeatView> seats;
+        try {
+            seats = seatRepo.findViewsByFlightId(flightId);
+        } finally {
+            ReadRouting.allowReplica(replica);
+        }
+        List<String> labels = new ArrayList<>(seats.size());
+        List<SeatStatus> statuses = new ArrayList<>(seats.size());
+        List<Long> expiries = new ArrayList<>(seats.size());
+        for (SeatView s : seats) {
+            labels.add(s.seatLabel());
+            statuses.add(s.status());
+            expiries.add(s.holdExpiresAt() == null ? null : toMillis(s.holdExpiresAt()));
+        }
+        return new SeatInventory(flightId, labels, statuses, expiries);
+    }
+
+    /**
+     * Hold seats in memory. Throws SeatConflictException listing the conflicting labels.
+     * The hold is undone if the surrounding transaction rolls back.
+     */
+    public SeatInventory.Claim hold(Long flightId, List<String> labels, LocalDateTime expires) {
+        SeatInventory.Claim claim = forFlight(flightId).hold(labels, toMillis(expires));
+        if (!claim.isSuccess()) {
+            throw new SeatConflictException(claim.getConflicts());
+        }
+        afterCommit(claim, flightId, SeatStatus.HELD, null, expires);
+        return claim;
+    }
+
+    /**
+     * HELD -> BOOKED for all labels or none. Returns the number of seats booked.
+     */
+    public int book(Long flightId, List<String> labels, Long bookingId) {
+        SeatInventory.Claim claim = forFlight(flightId).book(labels);
+        if (!claim.isSuccess()) return 0;
+        afterCommit(claim, flightId, SeatStatus.BOOKED, bookingId, null);
+        return claim.size();
+    }
+
+    /**
+     * HELD -> AVAILABLE for whichever labels are still held. Returns the labels released.
+     */
+    public List<String> release(Long flightId, List<String> labels) {
+        SeatInventory.Claim claim = forFlight(flightId).release(labels);
+        afterCommit(claim, flightId, SeatStatus.AVAILABLE, null, null);
+        return claim.getLabels();
+    }
+
+    /**
+     * Release expired holds across all loaded flights. Returns the number of seats released.
+     */
+    public int releaseExpired(LocalDateTime now) {
+        long nowMillis = toMillis(now);
+        int total = 0;
+        for (SeatInventory inv : flights.values()) {
+            List<String> released = inv.releaseExpired(nowMillis);
+            for (String label : released) {
+                pending.add(new SeatWrite(inv.getFlightId(), label, SeatStatus.AVAILABLE, null, null));
+            }
+            total += released.size();
+        }
+        return total;
+    }
+
+    /**
+     * Release the given labels of one flight if their hold has expired. Returns the labels released.
+     */
+    public List<String> releaseExpired(Long flightId, List<String> labels, LocalDateTime now) {
+        List<String> released = forFlight(flightId).releaseExpired(labels, toMillis(now));
+        for (String label : released) {
+            pending.add(new SeatWrite(flightId, label, SeatStatus.AVAILABLE, null, null));
+        }
+        return released;
+    }
+
+    // queue the DB write once the caller commits; undo the in-memory transition if it rolls back.
+    // Queued in afterCommit, ahead of the seat count delta registered after it, so a recount that
+    // flushes these writes first never misses a seat whose delta it already covers.
+    private void afterCommit(SeatInventory.Claim claim, Long flightId, SeatStatus status,
+                             Long bookingId, LocalDateTime holdExpiresAt) {
+        if (claim.size() == 0) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(claim, flightId, status, bookingId, holdExpiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(claim, flightId, status, bookingId, holdExpiresAt);
+            }
+
+            @Override
+            public void afterCompletion(int txStatus) {
+                if (txStatus != STATUS_COMMITTED) claim.undo();
+            }
+        });
+    }
+
+    private void enqueue(SeatInventory.Claim claim, Long flightId, SeatStatus status,
+                         Long bookingId, LocalDateTime holdExpiresAt) {
+        for (String label : claim.getLabels()) {
+            pending.add(new SeatWrite(flightId, label, status, bookingId, holdExpiresAt));
+        }
+    }
+
+    /**
+     * Write-behind: drain queued seat transitions into one JDBC batch.
+     * Only the last write per seat is kept.
+     */
+    @Scheduled(fixedDelayString = "${airline.inventory.flush-interval-ms:200}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (pending.isEmpty() && retry.isEmpty()) return;
+        Map<String, SeatWrite> latest = retry;
+        retry = new LinkedHashMap<>();
+        SeatWrite w;
+        while ((w = pending.poll()) != null) {
+            latest.put(w.flightId + ":" + w.label, w);
+        }
+        List<Object[]> args = new ArrayList<>(latest.size());
+        for (SeatWrite sw : latest.values()) {
+            args.add(new Object[]{
+                    sw.status.name(),
+                    sw.bookingId,
+                    sw.holdExpiresAt == null ? null : Timestamp.valueOf(sw.holdExpiresAt),
+                    sw.flightId,
+                    sw.label
+            });
+        }
+        try {
+            jdbc.batchUpdate(WRITE_SQL, args);
+        } catch (RuntimeException ex) {
+            retry = latest;
+            throw ex;
+        }
+    }
+
+    static long toMillis(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record SeatWrite(Long flightId, String label, SeatStatus status, Long bookingId,
+                             LocalDateTime holdExpiresAt) {
+    }
+}
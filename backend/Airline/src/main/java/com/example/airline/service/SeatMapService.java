@@ -0,0 +1,233 @@
+package com.example.airline.service;
+
+import com.example.airline.config.ReadRouting;
+import com.example.airline.config.ReplicaLagMonitor;
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
+import com.example.airline.repository.SeatRepository;
+import com.example.airline.repository.SeatView;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Seat-map versions and the compact seat-map encoding.
+ * Every hold/release/book bumps the flight's version, which backs the seat-map ETags.
+ * The layout (labels, rows, cols, classes) never changes once seeded, so it is cached and
+ * sent once; after that clients only fetch a 2-bit-per-seat status bitmap in layout order.
+ * Versions live in this process, so ETags only track changes made through this node.
+ *
+ * With a read replica, a read that goes out under the current ETag ({@link #readCurrent}) may
+ * only use it once it has replicated the flight's last change; otherwise a stale map would be
+ * cached by clients under the newest ETag and kept alive by 304s.
+ */
+@Service
+public class SeatMapService {
+
+    // bitmap codes, 2 bits per seat
+    public static final int CODE_AVAILABLE = 0;
+    public static final int CODE_HELD = 1;
+    public static final int CODE_BOOKED = 2;
+
+    private final SeatRepository seatRepo;
+    private final SeatInventoryService inventory;
+    private final SeatEventHub events;
+    private final Supplier<ReplicaLagMonitor> replica;
+    private final LongSupplier clock;
+
+    // versions restart at 0 on boot; the boot id keeps old ETags from matching
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Long, SeatLayout> layouts = new ConcurrentHashMap<>();
+    // when each flight last changed, and every flight (boot counts: rows may predate this process)
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    private volatile long allChangedAt;
+
+    @Autowired
+    public SeatMapService(SeatRepository seatRepo, SeatInventoryService inventory, SeatEventHub events,
+                          ObjectProvider<ReplicaLagMonitor> replica) {
+        this(seatRepo, inventory, events, replica::getIfAvailable, System::currentTimeMillis);
+    }
+
+    SeatMapService(SeatRepository seatRepo, SeatInventoryService inventory, SeatEventHub events,
+                   Supplier<ReplicaLagMonitor> replica, LongSupplier clock) {
+        this.seatRepo = seatRepo;
+        this.inventory = inventory;
+        this.events = events;
+        this.replica = replica;
+        this.clock = clock;
+        this.allChangedAt = clock.getAsLong();
+    }
+
+    /**
+     * Record a seat transition once the current transaction commits and stream it to subscribers.
+     */
+    public void changed(Long flightId, List<String> labels, SeatStatus from, SeatStatus to) {
+        AfterCommit.run(() -> events.publish(flightId, bump(flightId), labels, from, to));
+    }
+
+    /**
+     * Seats of a flight changed but not individually known; subscribers refetch.
+     */
+    public void changedUnknown(Long flightId) {
+        AfterCommit.run(() -> events.resync(flightId, bump(flightId)));
+    }
+
+    /**
+     * Something changed on every flight (e.g. the fallback expiry sweep).
+     */
+    public void changedAll() {
+        AfterCommit.run(() -> {
+            allChangedAt = clock.getAsLong();
+            Map<Long, Long> bumped = new HashMap<>();
+            versions.forEach((id, v) -> bumped.put(id, v.incrementAndGet()));
+            events.resyncAll(bumped);
+        });
+    }
+
+    public long version(Long flightId) {
+        AtomicLong v = versions.get(flightId);
+        return v == null ? 0 : v.get();
+    }
+
+    public String etag(Long flightId) {
+        return "\"" + bootId + "-" + flightId + "-" + version(flightId) + "\"";
+    }
+
+    /**
+     * Run a read of the flight's seats that is sent under its current ETag (take the ETag first).
+     * It may use the read replica only if the replica has caught up with the flight's last change.
+     */
+    public <T> T readCurrent(Long flightId, Supplier<T> read) {
+        if (!ReadRouting.isReplicaAllowed()) return read.get();
+        ReplicaLagMonitor lag = replica.get();
+        long last = Math.max(allChangedAt, changedAt.getOrDefault(flightId, 0L));
+        if (lag != null && lag.hasCaughtUpTo(last)) return read.get();
+        boolean previous = ReadRouting.allowReplica(false);
+        try {
+            return read.get();
+        } finally {
+            ReadRouting.allowReplica(previous);
+        }
+    }
+
+    public String layoutEtag(Long flightId) {
+        return "\"layout-" + flightId + "-" + layout(flightId).getLabels().size() + "\"";
+    }
+
+    public SeatLayout layout(Long flightId) {
+        SeatLayout cached = layouts.get(flightId);
+        if (cached != null) return cached;
+        SeatLayout loaded = SeatLayout.of(flightId, seatRepo.findViewsByFlightId(flightId));
+        // an empty layout may still be seeding, so only cache real ones
+        if (!loaded.getLabels().isEmpty()) layouts.put(flightId, loaded);
+        return loaded;
+    }
+
+    /**
+     * Current statuses as a base64 bitmap in layout order, tagged with the version it reflects.
+     */
+    public SeatStatusBitmap statusBitmap(Long flightId) {
+        // read the version first: a change racing with the read only makes the next poll refetch
+        long version = version(flightId);
+        SeatLayout layout = layout(flightId);
+        int n = layout.getLabels().size();
+        byte[] bits = new byte[(n + 3) / 4];
+        if (inventory.isEnabled()) {
+            SeatInventory inv = inventory.forFlight(flightId);
+            for (int i = 0; i < n; i++) {
+                set(bits, i, code(inv.statusOf(layout.getLabels().get(i))));
+            }
+        } else {
+            List<SeatStatus> statuses = seatRepo.findStatusesByFlightId(flightId);
+            for (int i = 0; i < n && i < statuses.size(); i++) {
+                set(bits, i, code(statuses.get(i)));
+            }
+        }
+        return new SeatStatusBitmap(flightId, version, n, Base64.getEncoder().encodeToString(bits));
+    }
+
+    // the change time is recorded before the version moves, so a read under that version sees it
+    private long bump(Long flightId) {
+        changedAt.merge(flightId, clock.getAsLong(), Math::max);
+        return versions.computeIfAbsent(flightId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static void set(byte[] bits, int seat, int code) {
+        bits[seat >> 2] |= (byte) (code << ((seat & 3) * 2));
+    }
+
+    private static int code(SeatStatus status) {
+        if (status == SeatStatus.HELD) return CODE_HELD;
+        if (status == SeatStatus.BOOKED) return CODE_BOOKED;
+        return CODE_AVAILABLE;
+    }
+
+    /* SeatLayout DTO: parallel arrays in row/col order */
+    public static class SeatLayout {
+        private final Long flightId;
+        private final List<String> labels;
+        private final List<Integer> rows;
+        private final List<String> cols;
+        private final List<SeatClass> classes;
+
+        private SeatLayout(Long flightId, List<String> labels, List<Integer> rows, List<String> cols, List<SeatClass> classes) {
+            this.flightId = flightId;
+            this.labels = labels;
+            this.rows = rows;
+            this.cols = cols;
+            this.classes = classes;
+        }
+
+        static SeatLayout of(Long flightId, List<SeatView> seats) {
+            List<String> labels = new ArrayList<>(seats.size());
+            List<Integer> rows = new ArrayList<>(seats.size());
+            List<String> cols = new ArrayList<>(seats.size());
+            List<SeatClass> classes = new ArrayList<>(seats.size());
+            for (SeatView s : seats) {
+                labels.add(s.seatLabel());
+                rows.add(s.seatRow());
+                cols.add(s.seatCol());
+                classes.add(s.seatClass());
+            }
+            return new SeatLayout(flightId, List.copyOf(labels), rows, cols, classes);
+        }
+
+        public Long getFlightId() { return flightId; }
+        public List<String> getLabels() { return labels; }
+        public List<Integer> getRows() { return rows; }
+        public List<String> getCols() { return cols; }
+        public List<SeatClass> getClasses() { return classes; }
+    }
+
+    /* SeatStatusBitmap DTO: bitmap is base64, 2 bits per seat (0 available, 1 held, 2 booked), low bits first */
+    public static class SeatStatusBitmap {
+        private final Long flightId;
+        private final long version;
+        private final int seats;
+        private final String bitmap;
+
+        public SeatStatusBitmap(Long flightId, long version, int seats, String bitmap) {
+            this.flightId = flightId;
+            this.version = version;
+            this.seats = seats;
+            this.bitmap = bitmap;
+        }
+
+        public Long getFlightId() { return flightId; }
+        public long getVersion() { return version; }
+        public int getSeats() { return seats; }
+        public String getBitmap() { return bitmap; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.airline.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal one-page PDF writer for tickets (no external libs).
+ * Objects are written in order and their byte offsets recorded as they go, so the xref table
+ * is correct whatever the content length. Text is Helvetica, one line per entry.
+ */
+final class TicketPdf {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+    private final List<Integer> offsets = new ArrayList<>();
+
+    private TicketPdf() {
+    }
+
+    static byte[] render(List<String> lines) {
+        TicketPdf pdf = new TicketPdf();
+        pdf.write("%PDF-1.4\n");
+        pdf.object("<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.object("<< /Type /Pages /Kids [3 0 R] /Count 1 >>");
+        pdf.object("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] " +
+                "/Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>");
+        pdf.object("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>");
+        pdf.stream(content(lines));
+        return pdf.finish();
+    }
+
+    private static byte[] content(List<String> lines) {
+        StringBuilder sb = new StringBuilder("BT\n/F1 12 Tf\n16 TL\n50 790 Td\n");
+        for (String line : lines) {
+            sb.append('(').append(escape(line)).append(") Tj T*\n");
+        }
+        sb.append("ET");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // literal strings: backslash-escape the delimiters, keep to printable Latin-1
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20 || c > 0xFF) sb.append('?');
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private void object(String body) {
+        begin();
+        write(body);
+        write("\nendobj\n");
+    }
+
+    private void stream(byte[] data) {
+        begin();
+        write("<< /Length " + data.length + " >>\nstream\n");
+        out.write(data, 0, data.length);
+        write("\nendstream\nendobj\n");
+    }
+
+    private void begin() {
+        offsets.add(out.size());
+        write(offsets.size() + " 0 obj\n");
+    }
+
+    private byte[] finish() {
+        int xref = out.size();
+        write("xref\n0 " + (offsets.size() + 1) + "\n");
+        // every entry is exactly 20 bytes
+        write("0000000000 65535 f \n");
+        for (int offset : offsets) {
+            write(String.format("%010d 00000 n \n", offset));
+        }
+        write("trailer\n<< /Size " + (offsets.size() + 1) + " /Root 1 0 R >>\n");
+        write("startxref\n" + xref + "\n%%EOF\n");
+        return out.toByteArray();
+    }
+
+    private void write(String s) {
+        byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(b, 0, b.length);
+    }
+}
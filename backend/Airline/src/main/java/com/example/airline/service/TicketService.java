@@ -1,77 +1,179 @@
 package com.example.airline.service;
 
-import com.example.airline.entity.Booking;
-import com.example.airline.entity.BookingSeat;
 import com.example.airline.repository.BookingRepository;
-import com.example.airline.repository.BookingSeatRepository;
+import com.example.airline.repository.BookingRepositoryCustom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * Tickets for paid bookings are rendered once, off the request thread after confirmPayment
+ * commits, into a file store (airline.tickets.dir). Downloads and exports read the stored files;
+ * a ticket that is not there yet is rendered on demand. Unpaid bookings are rendered per request.
+ */
 @Service
 public class TicketService {
 
+    private static final Logger log = LoggerFactory.getLogger(TicketService.class);
+
     private final BookingRepository bookingRepo;
-    private final BookingSeatRepository bookingSeatRepo;
+    private final BookingMetrics metrics;
+    private final TaskExecutor renderers;
+    private final Path dir;
 
-    public TicketService(BookingRepository bookingRepo, BookingSeatRepository bookingSeatRepo) {
+    public TicketService(BookingRepository bookingRepo,
+                         BookingMetrics metrics,
+                         @Qualifier("applicationTaskExecutor") TaskExecutor renderers,
+                         @Value("${airline.tickets.dir:data/tickets}") String dir) {
         this.bookingRepo = bookingRepo;
-        this.bookingSeatRepo = bookingSeatRepo;
+        this.metrics = metrics;
+        this.renderers = renderers;
+        this.dir = Paths.get(dir).toAbsolutePath();
     }
 
     /**
-     * Generates a SIMPLE PDF ticket (no external libs)
-     * This produces a minimal but valid PDF.
+     * Render and store the ticket once the caller's transaction commits. The data is captured by
+     * the caller, so rendering needs no queries. If it fails the first download renders it.
      */
-    public byte[] generateTicketPdfForBooking(Integer bookingId) {
+    public void renderAfterCommit(TicketData data) {
+        AfterCommit.run(() -> {
+            try {
+                renderers.execute(() -> {
+                    try {
+                        store(data);
+                    } catch (IOException | RuntimeException ex) {
+                        storeFailed(data, "store", ex);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                // executor full or shut down; must not surface in the committed caller
+                storeFailed(data, "rejected", ex);
+            }
+        });
+    }
 
-        Booking booking = bookingRepo.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+    // not fatal: the first download renders the ticket again
+    private void storeFailed(TicketData data, String stage, Exception ex) {
+        metrics.ticketStoreFailed(stage);
+        log.warn("Ticket for booking {} not stored ({})", data.bookingId(), stage, ex);
+    }
 
-        List<BookingSeat> seats = bookingSeatRepo.findByBookingId(
-                booking.getId().longValue()
-        );
+    /**
+     * Stored ticket for a paid booking, rendered now if it is not in the store yet.
+     * Null when the booking is not paid. Throws IllegalArgumentException if it does not exist.
+     */
+    public TicketFile storedTicket(Integer bookingId) throws IOException {
+        Path path = pathFor(bookingId);
+        if (!Files.exists(path)) {
+            TicketData data = load(bookingId);
+            if (!"PAID".equals(data.paymentStatus())) return null;
+            store(data);
+        }
+        return TicketFile.of(bookingId, path);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("AIRLINE E-TICKET\n\n");
-        sb.append("PNR: ").append(booking.getPnr()).append("\n");
-        sb.append("Booking ID: ").append(booking.getId()).append("\n");
+    /**
+     * Generates a SIMPLE PDF ticket (no external libs) from the current booking rows, without storing it.
+     */
+    public byte[] generateTicketPdfForBooking(Integer bookingId) {
+        return render(load(bookingId));
+    }
 
-        if (booking.getUser() != null) {
-            sb.append("User ID: ").append(booking.getUser().getId()).append("\n");
+    /**
+     * Write a ZIP of every paid ticket of a flight to out. Entries are copied from the store one
+     * file at a time, so no ticket is held in memory.
+     */
+    public void exportFlight(Integer flightId, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Integer bookingId : bookingRepo.findPaidIdsByFlightId(flightId)) {
+            TicketFile ticket = storedTicket(bookingId);
+            if (ticket == null) continue;
+            zip.putNextEntry(new ZipEntry("ticket_" + bookingId + ".pdf"));
+            Files.copy(ticket.path(), zip);
+            zip.closeEntry();
         }
+        zip.finish();
+    }
 
-        if (booking.getFlight() != null) {
-            sb.append("Flight: ").append(booking.getFlight().getFlightNo()).append("\n\n");
-        } else {
-            sb.append("Flight: N/A\n\n");
+    // one projection query; no entities, no user row
+    private TicketData load(Integer bookingId) {
+        BookingRepositoryCustom.TicketView view = bookingRepo.findTicketView(bookingId);
+        if (view == null) throw new IllegalArgumentException("Booking not found: " + bookingId);
+        return new TicketData(view.bookingId(), view.pnr(), view.userId(), view.flightNo(),
+                view.seatLabels(), view.paymentStatus());
+    }
+
+    // write to a temp file and move it into place, so readers never see a partial ticket
+    private void store(TicketData data) throws IOException {
+        byte[] pdf = render(data);
+        Path path = pathFor(data.bookingId());
+        Files.createDirectories(path.getParent());
+        Path tmp = Files.createTempFile(path.getParent(), data.bookingId() + "-", ".tmp");
+        try {
+            Files.write(tmp, pdf);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
         }
+    }
 
-        sb.append("Seats:\n");
-        for (BookingSeat s : seats) {
-            sb.append(" - ").append(s.getSeatLabel()).append("\n");
+    private byte[] render(TicketData data) {
+        long t0 = System.nanoTime();
+        String outcome = "error";
+        try {
+            List<String> lines = new ArrayList<>();
+            lines.add("AIRLINE E-TICKET");
+            lines.add("");
+            lines.add("PNR: " + data.pnr());
+            lines.add("Booking ID: " + data.bookingId());
+            if (data.userId() != null) lines.add("User ID: " + data.userId());
+            lines.add("Flight: " + (data.flightNo() == null ? "N/A" : data.flightNo()));
+            lines.add("");
+            lines.add("Seats:");
+            for (String seat : data.seats()) lines.add(" - " + seat);
+            lines.add("");
+            lines.add("Payment Status: " + data.paymentStatus());
+            byte[] pdf = TicketPdf.render(lines);
+            outcome = "ok";
+            return pdf;
+        } finally {
+            metrics.ticket(outcome).record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
         }
+    }
+
+    // bucketed by thousands so no directory grows unbounded
+    private Path pathFor(Integer bookingId) {
+        return dir.resolve(Integer.toString(bookingId / 1000)).resolve(bookingId + ".pdf");
+    }
 
-        sb.append("\nPayment Status: ").append(booking.getPaymentStatus()).append("\n");
-
-        // Build minimal valid PDF
-        String pdf = "%PDF-1.4\n" +
-                "1 0 obj <<>> endobj\n" +
-                "2 0 obj << /Length " + sb.length() + " >>\n" +
-                "stream\n" + sb + "\nendstream\nendobj\n" +
-                "3 0 obj << /Type /Page /Parent 4 0 R /Contents 2 0 R >> endobj\n" +
-                "4 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj\n" +
-                "5 0 obj << /Type /Catalog /Pages 4 0 R >> endobj\n" +
-                "xref\n0 6\n0000000000 65535 f \n" +
-                "0000000010 00000 n \n" +
-                "0000000053 00000 n \n" +
-                "0000000120 00000 n \n" +
-                "0000000175 00000 n \n" +
-                "0000000227 00000 n \n" +
-                "trailer << /Root 5 0 R /Size 6 >>\n" +
-                "startxref\n278\n%%EOF";
-
-        return pdf.getBytes(StandardCharsets.UTF_8);
+    /* what goes on a ticket */
+    public record TicketData(Integer bookingId, String pnr, Integer userId, String flightNo,
+                             List<String> seats, String paymentStatus) {
+    }
+
+    /* a stored ticket; the ETag changes whenever the file is rewritten */
+    public record TicketFile(Path path, long size, String etag) {
+        static TicketFile of(Integer bookingId, Path path) throws IOException {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            long modified = attrs.lastModifiedTime().toMillis();
+            String etag = "\"ticket-" + bookingId + "-" + Long.toHexString(modified) + "-" + Long.toHexString(attrs.size()) + "\"";
+            return new TicketFile(path, attrs.size(), etag);
+        }
     }
 }
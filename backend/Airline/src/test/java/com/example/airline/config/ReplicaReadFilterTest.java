@@ -0,0 +1,44 @@
+package com.example.airline.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaReadFilterTest {
+
+    private final ReplicaReadFilter filter = new ReplicaReadFilter(5_000);
+
+    // whether the request's reads were allowed on the replica
+    private boolean replicaAllowed(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean allowed = new AtomicBoolean();
+        filter.doFilter(request, response, (req, res) -> allowed.set(ReadRouting.isReplicaAllowed()));
+        assertFalse(ReadRouting.isReplicaAllowed());
+        return allowed.get();
+    }
+
+    @Test
+    void seatMapAfterAHoldIsReadFromThePrimary() throws Exception {
+        assertTrue(replicaAllowed(new MockHttpServletRequest("GET", "/api/flights/1/seats"), new MockHttpServletResponse()));
+
+        MockHttpServletResponse held = new MockHttpServletResponse();
+        assertFalse(replicaAllowed(new MockHttpServletRequest("POST", "/api/book/hold"), held));
+        Cookie pin = held.getCookie(ReplicaReadFilter.PIN_COOKIE);
+        assertNotNull(pin);
+
+        // the client sends the cookie back (fetch with credentials: 'include')
+        MockHttpServletRequest seats = new MockHttpServletRequest("GET", "/api/flights/1/seats");
+        seats.setCookies(pin);
+        assertFalse(replicaAllowed(seats, new MockHttpServletResponse()));
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/flights/1/seats");
+        expired.setCookies(new Cookie(ReplicaReadFilter.PIN_COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        assertTrue(replicaAllowed(expired, new MockHttpServletResponse()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.airline.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// two in-memory H2 databases stand in for the primary and the replica; "replication" is copying the heartbeat row
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final JdbcTemplate primary = new JdbcTemplate(database("primary"));
+    private final JdbcTemplate replica = new JdbcTemplate(database("replica"));
+    private final ReplicaLagMonitor lag = new ReplicaLagMonitor(primary, replica, 1_000, now::get);
+    private final DataSource routing = new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primary.getDataSource(), replica.getDataSource(), lag, null));
+    private final DataSourceTransactionManager txManager = new DataSourceTransactionManager(routing);
+
+    @AfterEach
+    void resetRouting() {
+        ReadRouting.allowReplica(false);
+    }
+
+    private static DataSource database(String name) {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        return ds;
+    }
+
+    private void replicate() {
+        replica.execute(ReplicaLagMonitor.TABLE_DDL);
+        replica.update("DELETE FROM replica_heartbeat");
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", beat);
+    }
+
+    private String readFrom(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(s -> new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionsUseFreshReplicaOnlyWhenAllowed() {
+        lag.beat();
+        replicate();
+        lag.beat();
+        assertTrue(lag.isFresh());
+
+        assertEquals("primary", readFrom(true));     // not allowed on this thread
+        ReadRouting.allowReplica(true);
+        assertEquals("replica", readFrom(true));
+        assertEquals("primary", readFrom(false));    // writes never leave the primary
+        assertEquals("primary", new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    void fallsBackToPrimaryWhileReplicaLags() {
+        ReadRouting.allowReplica(true);
+        lag.beat();                                   // nothing replicated yet
+        assertFalse(lag.isFresh());
+        assertEquals("primary", readFrom(true));
+
+        replicate();
+        lag.beat();
+        assertEquals("replica", readFrom(true));
+
+        now.addAndGet(5_000);                        // primary moves on, replica stalls
+        lag.beat();
+        assertEquals(5_000, lag.lagMillis());
+        assertEquals("primary", readFrom(true));
+
+        replicate();
+        lag.beat();
+        assertEquals(0, lag.lagMillis());
+        assertEquals("replica", readFrom(true));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayFollowsTheSeatLifecycle() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        BookingJournal journal = new BookingJournal(dir, 1 << 20);
+        journal.held(1L, 10L, List.of("1A", "1B"), now.plusMinutes(10));
+        journal.held(1L, 11L, List.of("2A"), now.minusSeconds(1));
+        journal.held(1L, 12L, List.of("3A"), now.plusMinutes(10));
+        journal.held(2L, 13L, List.of("1A"), now.minusSeconds(5));
+        journal.booked(1L, 10L, List.of("1A", "1B"));
+        journal.paymentFailed(1L, 12L, List.of("3A"));
+        journal.expired(1L, List.of("2A", "1A"), now);
+        journal.swept(now);
+        journal.close();
+
+        JournalReplay.Result r = JournalReplay.replay(dir);
+        assertEquals(8, r.events());
+        assertEquals(8, r.lastSeq());
+        Map<String, JournalReplay.SeatState> flight1 = r.seats().get(1L);
+        assertEquals(SeatStatus.BOOKED, flight1.get("1A").status());
+        assertEquals(10L, flight1.get("1A").bookingId());
+        assertEquals(SeatStatus.BOOKED, flight1.get("1B").status());
+        assertEquals(SeatStatus.AVAILABLE, flight1.get("2A").status());
+        assertEquals(SeatStatus.AVAILABLE, flight1.get("3A").status());
+        assertEquals(SeatStatus.AVAILABLE, r.seats().get(2L).get("1A").status());
+    }
+
+    @Test
+    void paymentFailureJournaledAfterANewerHoldKeepsThatHold() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        BookingJournal journal = new BookingJournal(dir, 1 << 20);
+        journal.held(1L, 20L, List.of("5A"), now.plusMinutes(10));
+        // 20 failed and 21 held the seat after it, but 21's commit hook ran first
+        journal.held(1L, 21L, List.of("5A"), now.plusMinutes(10));
+        journal.paymentFailed(1L, 20L, List.of("5A"));
+        journal.close();
+
+        JournalReplay.SeatState seat = JournalReplay.replay(dir).seats().get(1L).get("5A");
+        assertEquals(SeatStatus.HELD, seat.status());
+        assertEquals(21L, seat.bookingId());
+    }
+
+    @Test
+    void rollsSegmentsAndContinuesAfterReopen() throws Exception {
+        LocalDateTime expires = LocalDateTime.now().plusMinutes(10);
+        BookingJournal journal = new BookingJournal(dir, 4096);
+        for (long i = 1; i <= 200; i++) journal.held(1L, i, List.of("S" + i), expires);
+        journal.close();
+        journal = new BookingJournal(dir, 4096);
+        for (long i = 1; i <= 100; i++) journal.booked(1L, i, List.of("S" + i));
+        journal.close();
+
+        JournalReplay.Result r = JournalReplay.replay(dir);
+        assertTrue(r.segments() > 1, "segments=" + r.segments());
+        assertEquals(300, r.events());
+        assertEquals(300, r.lastSeq());
+        assertEquals(0, r.damagedSegments());
+        assertEquals(SeatStatus.BOOKED, r.seats().get(1L).get("S100").status());
+        assertEquals(SeatStatus.HELD, r.seats().get(1L).get("S101").status());
+    }
+
+    @Test
+    void damagedRecordEndsTheSegmentAndWritingResumesBeforeIt() throws Exception {
+        LocalDateTime expires = LocalDateTime.now().plusMinutes(10);
+        BookingJournal journal = new BookingJournal(dir, 1 << 16);
+        journal.held(1L, 1L, List.of("1A"), expires);
+        journal.held(1L, 2L, List.of("1B"), expires);
+        journal.held(1L, 3L, List.of("1C"), expires);
+        journal.close();
+
+        // flip a payload byte of the second record
+        Path segment = JournalSegments.list(dir).get(0);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+            int second = JournalSegments.HEADER_BYTES + JournalSegments.RECORD_OVERHEAD + buf.getInt(JournalSegments.HEADER_BYTES);
+            int at = second + JournalSegments.RECORD_OVERHEAD + 3;
+            buf.put(at, (byte) (buf.get(at) ^ 0x55));
+            buf.force();
+        }
+        JournalReplay.Result damaged = JournalReplay.replay(dir);
+        assertEquals(1, damaged.events());
+        assertEquals(1, damaged.damagedSegments());
+
+        journal = new BookingJournal(dir, 1 << 16);
+        journal.booked(1L, 1L, List.of("1A"));
+        journal.close();
+        JournalReplay.Result r = JournalReplay.replay(dir);
+        assertEquals(2, r.events());
+        assertEquals(2, r.lastSeq());
+        assertEquals(0, r.damagedSegments());
+        assertEquals(SeatStatus.BOOKED, r.seats().get(1L).get("1A").status());
+        assertNull(r.seats().get(1L).get("1B"));
+    }
+}
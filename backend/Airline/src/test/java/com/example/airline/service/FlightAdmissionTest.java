@@ -0,0 +1,68 @@
+package com.example.airline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightAdmissionTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    // 10 holds/s, bursts of 2, 3 waiting at most, 1 s max wait
+    private FlightAdmission admission(int queueCapacity) {
+        return new FlightAdmission(true, 10, 2, queueCapacity, 1000, null, now::get);
+    }
+
+    @Test
+    void burstThenQueueInArrivalOrderThenReject() {
+        FlightAdmission a = admission(3);
+        assertEquals(0, a.reserve(1L).waitNanos());
+        assertEquals(0, a.reserve(1L).waitNanos());
+
+        long step = TimeUnit.MILLISECONDS.toNanos(100);
+        for (int position = 1; position <= 3; position++) {
+            FlightAdmission.Decision d = a.reserve(1L);
+            assertTrue(d.admitted());
+            assertEquals(position, d.position());
+            assertEquals(position * step, d.waitNanos(), 1_000);
+        }
+        FlightAdmission.Decision full = a.reserve(1L);
+        assertFalse(full.admitted());
+        assertEquals(4, full.position());
+        assertEquals(1, full.retryAfterSeconds());
+
+        // another flight has its own bucket
+        assertEquals(FlightAdmission.Decision.ADMITTED, a.reserve(2L));
+    }
+
+    @Test
+    void queueDrainsAtTheRate() {
+        FlightAdmission a = admission(3);
+        for (int i = 0; i < 5; i++) a.reserve(1L);
+        assertFalse(a.reserve(1L).admitted());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        FlightAdmission.Decision d = a.reserve(1L);
+        assertTrue(d.admitted());
+        assertEquals(1, d.position());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, a.reserve(1L).waitNanos());
+        assertEquals(0, a.reserve(1L).waitNanos());
+        assertEquals(1, a.reserve(1L).position());
+    }
+
+    @Test
+    void rejectsWhenTheTurnIsTooFarAway() {
+        FlightAdmission a = admission(1000);
+        int admitted = 0;
+        while (a.reserve(1L).admitted()) admitted++;
+        // burst of 2 plus 1 s worth of queue at 10/s
+        assertEquals(12, admitted);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.airline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldExpiryWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void expiresWithinOneTickAcrossLevels() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(1000, START);
+        long tenMinutes = START + 600_000;
+        wheel.add(new HoldExpiryWheel.HoldEntry(1L, 7L, List.of("1A", "1B"), tenMinutes));
+        wheel.add(new HoldExpiryWheel.HoldEntry(2L, 7L, List.of("2A"), START + 5_000));
+        wheel.add(new HoldExpiryWheel.HoldEntry(3L, 8L, List.of("3A"), START + 2L * 86_400_000));
+        assertEquals(3, wheel.liveSeatsByFlight().get(7L));
+
+        assertTrue(wheel.advance(START + 4_000).isEmpty());
+        assertEquals(List.of(2L), ids(wheel.advance(START + 5_000)));
+        assertTrue(wheel.advance(tenMinutes - 1_000).isEmpty());
+        assertEquals(List.of(1L), ids(wheel.advance(tenMinutes)));
+        assertNull(wheel.liveSeatsByFlight().get(7L));
+
+        assertEquals(List.of(3L), ids(wheel.advance(START + 2L * 86_400_000)));
+    }
+
+    @Test
+    void cancelledAndPastEntries() {
+        HoldExpiryWheel wheel = new HoldExpiryWheel(1000, START);
+        wheel.add(new HoldExpiryWheel.HoldEntry(1L, 7L, List.of("1A"), START + 90_000));
+        wheel.add(new HoldExpiryWheel.HoldEntry(2L, 7L, List.of("1B"), START - 60_000));
+        wheel.cancel(1L);
+
+        assertEquals(List.of(2L), ids(wheel.advance(START)));
+        assertTrue(wheel.advance(START + 120_000).isEmpty());
+        assertTrue(wheel.liveSeatsByFlight().isEmpty());
+    }
+
+    private static List<Long> ids(List<HoldExpiryWheel.HoldEntry> entries) {
+        return entries.stream().map(HoldExpiryWheel.HoldEntry::getBookingId).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.airline.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyStore store(int maxEntries, long waitMillis) {
+        return new IdempotencyStore(maxEntries, 60_000, waitMillis, new BookingMetrics(new SimpleMeterRegistry()), now::get);
+    }
+
+    private ResponseEntity<?> ok() {
+        return ResponseEntity.ok("run " + runs.incrementAndGet());
+    }
+
+    @Test
+    void replaysTheFirstResponse() {
+        IdempotencyStore store = store(10, 1_000);
+        ResponseEntity<?> first = store.execute("k", "a", this::ok);
+        ResponseEntity<?> second = store.execute("k", "a", this::ok);
+
+        assertEquals(1, runs.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void rejectsAKeyReusedForAnotherRequest() {
+        IdempotencyStore store = store(10, 1_000);
+        store.execute("k", "a", this::ok);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_CONTENT, store.execute("k", "b", this::ok).getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirst() throws Exception {
+        IdempotencyStore store = store(10, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                store.execute("k", "a", () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ok();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() -> store.execute("k", "a", this::ok));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).getBody(), duplicate.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void duplicateGives409WhenTheFirstTakesTooLong() throws Exception {
+        IdempotencyStore store = store(10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                store.execute("k", "a", () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ok();
+                }));
+        while (store.size() == 0) Thread.sleep(5);
+
+        assertEquals(HttpStatus.CONFLICT, store.execute("k", "a", this::ok).getStatusCode());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void serverErrorsAreNotKept() {
+        IdempotencyStore store = store(10, 1_000);
+        store.execute("k", "a", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.internalServerError().build();
+        });
+        ResponseEntity<?> retry = store.execute("k", "a", this::ok);
+
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void expiredAndOldestKeysAreDropped() {
+        IdempotencyStore store = store(2, 1_000);
+        store.execute("a", "x", this::ok);
+        store.execute("b", "x", this::ok);
+        store.execute("c", "x", this::ok);
+        assertEquals(2, store.size());
+        store.execute("a", "x", this::ok);
+        assertEquals(4, runs.get());
+
+        now.addAndGet(60_001);
+        store.execute("d", "x", this::ok);
+        assertEquals(1, store.size());
+    }
+}
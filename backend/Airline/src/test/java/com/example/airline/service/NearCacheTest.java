@@ -0,0 +1,67 @@
+package com.example.airline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NearCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String load(Integer key) {
+        loads.incrementAndGet();
+        return key < 0 ? null : "v" + key;
+    }
+
+    @Test
+    void hitsAfterFirstLoadAndDropsLeastRecentlyUsed() {
+        NearCache<Integer, String> cache = new NearCache<>(2, 60_000, now::get);
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals("v2", cache.get(2, this::load));
+        assertEquals("v1", cache.get(1, this::load));
+        cache.get(3, this::load);          // 2 is the least recently used
+        assertEquals(2, cache.size());
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    void expiresAfterTtlAndDoesNotKeepAbsentValues() {
+        NearCache<Integer, String> cache = new NearCache<>(10, 1_000, now::get);
+        cache.get(1, this::load);
+        now.addAndGet(999);
+        cache.get(1, this::load);
+        now.addAndGet(1);
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+
+        assertNull(cache.get(-1, this::load));
+        assertNull(cache.get(-1, this::load));
+        assertEquals(4, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotUndone() {
+        NearCache<Integer, String> cache = new NearCache<>(10, 60_000, now::get);
+        assertEquals("stale", cache.get(1, k -> {
+            cache.invalidate(List.of(1));
+            return "stale";
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("v1", cache.get(1, this::load));
+        cache.invalidateAll();
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+}
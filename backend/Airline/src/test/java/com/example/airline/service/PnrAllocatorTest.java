@@ -0,0 +1,93 @@
+package com.example.airline.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PnrAllocatorTest {
+
+    @Test
+    void formatIsSixValidCharsInSequenceOrder() {
+        String prev = null;
+        Set<String> seen = new HashSet<>();
+        for (long v = 0; v < PnrAllocator.PAYLOAD_SPACE; v += 4099) {
+            String pnr = PnrAllocator.format(v);
+            assertEquals(6, pnr.length());
+            assertTrue(PnrAllocator.isValid(pnr), pnr);
+            assertEquals(v, PnrAllocator.decode(pnr));
+            if (prev != null) assertTrue(prev.compareTo(pnr) < 0, prev + " !< " + pnr);
+            assertTrue(seen.add(pnr.substring(0, 5)));
+            prev = pnr;
+        }
+        assertEquals("222222", PnrAllocator.format(0));
+        assertEquals("ZZZZZ", PnrAllocator.format(PnrAllocator.PAYLOAD_SPACE - 1).substring(0, 5));
+    }
+
+    @Test
+    void checkCharacterCatchesTyposAndSwaps() {
+        for (long v = 1; v < PnrAllocator.PAYLOAD_SPACE; v += 104_729) {
+            char[] pnr = PnrAllocator.format(v).toCharArray();
+            for (int i = 0; i < pnr.length; i++) {
+                for (char c : PnrAllocator.ALPHABET) {
+                    if (c == pnr[i]) continue;
+                    char[] typo = pnr.clone();
+                    typo[i] = c;
+                    assertFalse(PnrAllocator.isValid(new String(typo)), new String(typo));
+                }
+            }
+            for (int i = 0; i + 1 < 5; i++) {
+                if (pnr[i] == pnr[i + 1]) continue;
+                char[] swapped = pnr.clone();
+                swapped[i] = pnr[i + 1];
+                swapped[i + 1] = pnr[i];
+                // Luhn mod N misses only the swap of the two symbols whose values add up to N - 1
+                if (index(pnr[i]) + index(pnr[i + 1]) == 31) continue;
+                assertFalse(PnrAllocator.isValid(new String(swapped)), new String(swapped));
+            }
+        }
+        assertFalse(PnrAllocator.isValid("22222O"));
+        assertFalse(PnrAllocator.isValid("2222222"));
+    }
+
+    @Test
+    void nodesAllocateFromDisjointRangesAndContinueAfterStoredMax() {
+        long span = PnrAllocator.PAYLOAD_SPACE / 4;
+        PnrAllocator node1 = new PnrAllocator(maxPnr(null), 1, 4);
+        assertEquals(PnrAllocator.format(span), node1.next());
+        assertEquals(PnrAllocator.format(span + 1), node1.next());
+
+        String stored = PnrAllocator.format(3 * span + 41);
+        PnrAllocator node3 = new PnrAllocator(maxPnr(stored), 3, 4);
+        assertEquals(PnrAllocator.format(3 * span + 42), node3.next());
+
+        assertThrows(IllegalArgumentException.class, () -> new PnrAllocator(null, 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> new PnrAllocator(null, 0, 3));
+    }
+
+    @Test
+    void exhaustedRangeFailsInsteadOfWrapping() {
+        long span = PnrAllocator.PAYLOAD_SPACE / 32;
+        PnrAllocator node = new PnrAllocator(maxPnr(PnrAllocator.format(span - 2)), 0, 32);
+        assertEquals(PnrAllocator.format(span - 1), node.next());
+        assertThrows(IllegalStateException.class, node::next);
+    }
+
+    // stands in for SELECT MAX(pnr)
+    private static JdbcTemplate maxPnr(String max) {
+        return new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                return (T) max;
+            }
+        };
+    }
+
+    private static int index(char c) {
+        return new String(PnrAllocator.ALPHABET).indexOf(c);
+    }
+}
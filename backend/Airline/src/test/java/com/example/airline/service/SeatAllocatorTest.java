@@ -0,0 +1,69 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
+import com.example.airline.repository.SeatView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatAllocatorTest {
+
+    // rows 1-4 economy and 6 business (row 5 missing), columns A-F
+    private static final SeatMapService.SeatLayout LAYOUT = layout();
+
+    private static SeatMapService.SeatLayout layout() {
+        List<SeatView> seats = new ArrayList<>();
+        for (int row : new int[]{1, 2, 3, 4, 6}) {
+            for (char col = 'A'; col <= 'F'; col++) {
+                SeatClass c = row == 6 ? SeatClass.BUSINESS : SeatClass.ECONOMY;
+                seats.add(new SeatView("" + row + col, row, "" + col, c, SeatStatus.AVAILABLE, null));
+            }
+        }
+        return SeatMapService.SeatLayout.of(1L, seats);
+    }
+
+    private static SeatAllocator.Plan plan(SeatClass c, int count, Set<String> taken) {
+        return SeatAllocator.plan(LAYOUT, c, count, i -> !taken.contains(LAYOUT.getLabels().get(i)));
+    }
+
+    @Test
+    void smallestBlockThatFitsFrontMostFirst() {
+        // row 1 free: A B C . E F   row 2 free: A . . D E F
+        Set<String> taken = Set.of("1D", "2B", "2C", "3A", "3B", "3C", "3D", "3E", "3F", "4A", "4B", "4C", "4D", "4E", "4F");
+        SeatAllocator.Plan two = plan(SeatClass.ECONOMY, 2, taken);
+        assertTrue(two.together());
+        assertEquals(List.of("1E", "1F"), two.labels());
+
+        SeatAllocator.Plan three = plan(SeatClass.ECONOMY, 3, taken);
+        assertEquals(List.of("1A", "1B", "1C"), three.labels());
+
+        assertEquals(List.of("6A", "6B", "6C", "6D"), plan(SeatClass.BUSINESS, 4, taken).labels());
+    }
+
+    @Test
+    void splitsOverTheFewestNeighbouringRows() {
+        // only pairs left: rows 1 and 3 have AB, row 4 has AB and EF
+        Set<String> taken = Set.of("1C", "1D", "1E", "1F", "2A", "2B", "2C", "2D", "2E", "2F",
+                "3C", "3D", "3E", "3F", "4C", "4D");
+        SeatAllocator.Plan plan = plan(SeatClass.ECONOMY, 4, taken);
+        assertFalse(plan.together());
+        assertEquals(List.of("4A", "4B", "4E", "4F"), plan.labels());
+
+        SeatAllocator.Plan six = plan(SeatClass.ECONOMY, 6, taken);
+        assertEquals(List.of("3A", "3B", "4A", "4B", "4E", "4F"), six.labels());
+    }
+
+    @Test
+    void emptyWhenTheClassHasTooFewSeats() {
+        assertTrue(plan(SeatClass.BUSINESS, 7, Set.of()).isEmpty());
+        assertTrue(plan(SeatClass.FIRST, 1, Set.of()).isEmpty());
+        assertEquals(24, plan(SeatClass.ECONOMY, 24, Set.of()).labels().size());
+    }
+}
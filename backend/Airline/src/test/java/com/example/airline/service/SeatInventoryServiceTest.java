@@ -0,0 +1,41 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatClass;
+import com.example.airline.entity.SeatStatus;
+import com.example.airline.repository.SeatRepository;
+import com.example.airline.repository.SeatView;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeatInventoryServiceTest {
+
+    // the flight's seat rows, as committed so far
+    private final List<SeatView> rows = new CopyOnWriteArrayList<>();
+    private final SeatRepository seatRepo = (SeatRepository) Proxy.newProxyInstance(
+            SeatRepository.class.getClassLoader(), new Class<?>[]{SeatRepository.class}, (proxy, method, args) -> {
+                if (method.getName().equals("findViewsByFlightId")) return List.copyOf(rows);
+                throw new UnsupportedOperationException(method.getName());
+            });
+    private final SeatInventoryService inventory = new SeatInventoryService(seatRepo, null, "memory");
+
+    @Test
+    void holdDuringBackgroundSeedingWorksOnceTheFlightIsSeeded() {
+        LocalDateTime expires = LocalDateTime.now().plusMinutes(10);
+        // seeding has not committed this flight yet
+        assertThrows(SeatConflictException.class, () -> inventory.hold(1L, List.of("1A"), expires));
+
+        rows.add(new SeatView("1A", 1, "A", SeatClass.FIRST, SeatStatus.AVAILABLE, null));
+        rows.add(new SeatView("1B", 1, "B", SeatClass.FIRST, SeatStatus.AVAILABLE, null));
+        inventory.hold(1L, List.of("1A"), expires);
+        assertEquals(SeatStatus.HELD, inventory.forFlight(1L).statusOf("1A"));
+        // from here on the inventory is cached and authoritative
+        assertThrows(SeatConflictException.class, () -> inventory.hold(1L, List.of("1A", "1B"), expires));
+    }
+}
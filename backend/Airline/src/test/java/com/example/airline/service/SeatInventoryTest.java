@@ -0,0 +1,94 @@
+package com.example.airline.service;
+
+import com.example.airline.entity.SeatStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatInventoryTest {
+
+    private static SeatInventory inventory(int seats) {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < seats; i++) labels.add((i / 6 + 1) + String.valueOf((char) ('A' + i % 6)));
+        return new SeatInventory(1L, labels,
+                Collections.nCopies(seats, SeatStatus.AVAILABLE),
+                Collections.nCopies(seats, null));
+    }
+
+    @Test
+    void holdIsAllOrNothing() {
+        SeatInventory inv = inventory(12);
+        assertTrue(inv.hold(List.of("1B"), 1000).isSuccess());
+
+        SeatInventory.Claim claim = inv.hold(List.of("1A", "1B", "1C", "9Z"), 1000);
+        assertFalse(claim.isSuccess());
+        assertEquals(List.of("1B", "9Z"), claim.getConflicts());
+        assertEquals(SeatStatus.AVAILABLE, inv.statusOf("1A"));
+        assertEquals(SeatStatus.AVAILABLE, inv.statusOf("1C"));
+    }
+
+    @Test
+    void bookAndExpireOnlyTouchHeldSeats() {
+        SeatInventory inv = inventory(6);
+        inv.hold(List.of("1A", "1B"), 1000);
+        inv.hold(List.of("1C"), 5000);
+
+        assertFalse(inv.book(List.of("1A", "1D")).isSuccess());
+        assertEquals(SeatStatus.HELD, inv.statusOf("1A"));
+
+        assertTrue(inv.book(List.of("1A")).isSuccess());
+        assertEquals(List.of("1B"), inv.releaseExpired(2000));
+        assertEquals(SeatStatus.BOOKED, inv.statusOf("1A"));
+        assertEquals(SeatStatus.HELD, inv.statusOf("1C"));
+    }
+
+    @Test
+    void undoRestoresPreviousState() {
+        SeatInventory inv = inventory(6);
+        SeatInventory.Claim claim = inv.hold(List.of("1A", "1B"), 1000);
+        claim.undo();
+        assertEquals(SeatStatus.AVAILABLE, inv.statusOf("1A"));
+        assertEquals(SeatStatus.AVAILABLE, inv.statusOf("1B"));
+    }
+
+    @Test
+    void contendedHoldsNeverOverlap() throws Exception {
+        SeatInventory inv = inventory(60);
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger seatsHeld = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    // overlapping pairs so most attempts collide
+                    int first = (seed * 7 + i) % 59;
+                    List<String> pair = List.of(inv.labelAt(first), inv.labelAt(first + 1));
+                    SeatInventory.Claim c = inv.hold(pair, Long.MAX_VALUE >>> 3);
+                    if (c.isSuccess()) seatsHeld.addAndGet(c.size());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        int heldNow = 0;
+        for (int i = 0; i < inv.size(); i++) {
+            if (inv.statusAt(i) == SeatStatus.HELD) heldNow++;
+        }
+        assertEquals(seatsHeld.get(), heldNow);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.airline.service;
+
+import com.example.airline.config.ReadRouting;
+import com.example.airline.config.ReplicaLagMonitor;
+import com.example.airline.config.ReplicaRoutingDataSource;
+import com.example.airline.entity.SeatStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a seat map read right after a hold must not come from a replica that has not replicated the hold yet
+class SeatMapServiceTest {
+
+    private static final String HEARTBEAT_DDL =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final JdbcTemplate primary = new JdbcTemplate(database("primary"));
+    private final JdbcTemplate replica = new JdbcTemplate(database("replica"));
+    private final ReplicaLagMonitor lag = new ReplicaLagMonitor(primary, replica, 1_000, now::get);
+    private final DataSource routing = new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primary.getDataSource(), replica.getDataSource(), lag, null));
+    private final TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+    private final SeatMapService seatMap = new SeatMapService(null, null,
+            new SeatEventHub(new ObjectMapper(), Runnable::run, 1_000, 64), () -> lag, now::get);
+
+    @AfterEach
+    void resetRouting() {
+        ReadRouting.allowReplica(false);
+    }
+
+    private static DataSource database(String name) {
+        DataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        jdbc.execute("CREATE TABLE seats (flight_id BIGINT, seat_label VARCHAR(8), status VARCHAR(16))");
+        jdbc.update("INSERT INTO seats VALUES (1, '1A', 'AVAILABLE')");
+        return ds;
+    }
+
+    // everything the primary has, heartbeat included, reaches the replica
+    private void replicate() {
+        replica.execute(HEARTBEAT_DDL);
+        replica.update("DELETE FROM replica_heartbeat");
+        replica.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)",
+                primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class));
+        replica.update("UPDATE seats SET status = ? WHERE seat_label = '1A'",
+                primary.queryForObject("SELECT status FROM seats WHERE seat_label = '1A'", String.class));
+    }
+
+    // what a seat map request reads, and from where
+    private String readSeat() {
+        readOnly.setReadOnly(true);
+        return seatMap.readCurrent(1L, () -> readOnly.execute(s -> {
+            JdbcTemplate jdbc = new JdbcTemplate(routing);
+            return jdbc.queryForObject("SELECT status FROM seats WHERE seat_label = '1A'", String.class)
+                    + "@" + jdbc.queryForObject("SELECT name FROM marker", String.class);
+        }));
+    }
+
+    @Test
+    void seatMapAfterAHoldWaitsForTheReplicaToCatchUp() {
+        now.addAndGet(10);
+        lag.beat();
+        replicate();
+        lag.beat();
+        ReadRouting.allowReplica(true);
+        assertEquals("AVAILABLE@replica", readSeat());
+
+        now.addAndGet(10);
+        primary.update("UPDATE seats SET status = 'HELD' WHERE seat_label = '1A'");
+        seatMap.changed(1L, List.of("1A"), SeatStatus.AVAILABLE, SeatStatus.HELD);
+        // the replica is fresh, but its newest heartbeat predates the hold
+        assertEquals("HELD@primary", readSeat());
+
+        now.addAndGet(10);
+        lag.beat();
+        replicate();
+        lag.beat();
+        assertEquals("HELD@replica", readSeat());
+        assertTrue(ReadRouting.isReplicaAllowed());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.airline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketPdfTest {
+
+    @Test
+    void xrefOffsetsPointAtObjects() {
+        for (List<String> lines : List.of(List.of("PNR: A"), List.of("PNR: ABC123", "Seats:", " - 12C (aisle)", "x".repeat(500)))) {
+            String pdf = new String(TicketPdf.render(lines), StandardCharsets.ISO_8859_1);
+
+            int xref = Integer.parseInt(after(pdf, "startxref\n").split("\n")[0]);
+            assertTrue(pdf.startsWith("xref\n0 6\n", xref));
+
+            Matcher entries = Pattern.compile("(\\d{10}) 00000 n \n").matcher(pdf.substring(xref));
+            int obj = 0;
+            while (entries.find()) {
+                obj++;
+                assertTrue(pdf.startsWith(obj + " 0 obj\n", Integer.parseInt(entries.group(1))), "object " + obj);
+            }
+            assertEquals(5, obj);
+        }
+    }
+
+    @Test
+    void streamLengthMatchesContentAndTextIsEscaped() {
+        String pdf = new String(TicketPdf.render(List.of("Seat (12C) \\ ok")), StandardCharsets.ISO_8859_1);
+        int length = Integer.parseInt(after(pdf, "/Length ").split(" ")[0]);
+        int start = pdf.indexOf("stream\n") + "stream\n".length();
+        assertEquals(start + length, pdf.indexOf("\nendstream"));
+        assertTrue(pdf.contains("(Seat \\(12C\\) \\\\ ok) Tj"));
+    }
+
+    private static String after(String s, String marker) {
+        return s.substring(s.lastIndexOf(marker) + marker.length());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.airline.service;
+
+import com.example.airline.AirlineApplication;
+import com.example.airline.config.SeedSeatsRunner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application against a private in-memory H2 database (MySQL mode) for benchmarks
+ * and the contention simulator.
+ */
+public final class BenchContext implements AutoCloseable {
+
+    private static final LocalDateTime DEPARTURE = LocalDate.now().plusDays(30).atTime(9, 30);
+
+    final ConfigurableApplicationContext ctx;
+    final JdbcTemplate jdbc;
+    final int userId;
+
+    private BenchContext(ConfigurableApplicationContext ctx) {
+        this.ctx = ctx;
+        this.jdbc = ctx.getBean(JdbcTemplate.class);
+        this.userId = insert("INSERT INTO users (full_name, email, password_hash) VALUES (?, ?, ?)",
+                "Bench User", "bench-" + UUID.randomUUID() + "@example.com", "x");
+    }
+
+    static BenchContext start(String inventoryMode) {
+        return start(WebApplicationType.NONE, inventoryMode, 0);
+    }
+
+    /**
+     * Boot with the embedded web server on a random port. Extra args (--key=value) override app properties.
+     */
+    public static BenchContext startServer(String inventoryMode, String... extraArgs) {
+        return start(WebApplicationType.SERVLET, inventoryMode, 0, extraArgs);
+    }
+
+    /**
+     * As {@link #startServer(String, String...)}, with dbLatencyMillis of simulated network round trip
+     * on every statement, commit and rollback.
+     */
+    public static BenchContext startServer(String inventoryMode, long dbLatencyMillis, String... extraArgs) {
+        return start(WebApplicationType.SERVLET, inventoryMode, dbLatencyMillis, extraArgs);
+    }
+
+    private static BenchContext start(WebApplicationType web, String inventoryMode, long dbLatencyMillis, String... extraArgs) {
+        String db = "bench" + UUID.randomUUID().toString().replace("-", "");
+        // command-line args, so they win over application.properties (builder properties are only defaults)
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + db + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--server.port=0",
+                "--airline.tickets.dir=" + System.getProperty("java.io.tmpdir") + "/" + db + "-tickets",
+                "--airline.inventory.mode=" + inventoryMode));
+        args.addAll(List.of(extraArgs));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(AirlineApplication.class)
+                .web(web)
+                .logStartupInfo(false);
+        if (dbLatencyMillis > 0) {
+            builder.initializers(c -> c.getBeanFactory().addBeanPostProcessor(new LatencyInjector(dbLatencyMillis)));
+        }
+        ConfigurableApplicationContext ctx = builder.run(args.toArray(new String[0]));
+        return new BenchContext(ctx);
+    }
+
+    public int port() {
+        return ctx.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public int userId() {
+        return userId;
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return ctx.getBean(type);
+    }
+
+    /**
+     * Departure of flights created by {@link #newFlight}; the simulator searches on its date.
+     */
+    public static LocalDateTime departure() {
+        return DEPARTURE;
+    }
+
+    /**
+     * A fresh flight with its seats seeded, so every measurement starts from an empty seat map.
+     */
+    public int newFlight(int seats) throws Exception {
+        LocalDateTime dep = DEPARTURE;
+        int id = insert("INSERT INTO flights (airline, flight_no, origin, destination, departure, arrival, price, seats_total, seats_available) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                "BN", "BN" + System.nanoTime() % 100000, "DEL", "BOM",
+                Timestamp.valueOf(dep), Timestamp.valueOf(dep.plusHours(2)), 5000.0, seats, seats);
+        bean(SeedSeatsRunner.class).run();
+        // inserted behind the app's back, so the search index has to pick it up
+        bean(FlightSearchIndex.class).reload();
+        return id;
+    }
+
+    private int insert(String sql, Object... args) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) ps.setObject(i + 1, args[i]);
+            return ps;
+        }, keys);
+        return keys.getKey().intValue();
+    }
+
+    @Override
+    public void close() {
+        ctx.close();
+    }
+}
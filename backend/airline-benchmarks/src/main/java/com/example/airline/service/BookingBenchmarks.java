@@ -0,0 +1,107 @@
+package com.example.airline.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths that consume inventory (hold, confirm). Each iteration gets a fresh flight and runs
+ * exactly BATCH operations (single-shot batches), so results are per-op latency on an unchanged
+ * starting state in both inventory modes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = BookingBenchmarks.BATCH)
+@Measurement(iterations = 10, batchSize = BookingBenchmarks.BATCH)
+@Fork(1)
+public class BookingBenchmarks {
+
+    static final int BATCH = 200;
+    static final int SEATS_PER_HOLD = 2;
+
+    @State(Scope.Benchmark)
+    public static class Ctx {
+        @Param({"db", "memory"})
+        public String inventoryMode;
+
+        BenchContext bench;
+        BookingService booking;
+        SeatMapService seatMap;
+
+        @Setup(Level.Trial)
+        public void start() {
+            bench = BenchContext.start(inventoryMode);
+            booking = bench.bean(BookingService.class);
+            seatMap = bench.bean(SeatMapService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            bench.close();
+        }
+
+        List<List<String>> seatPairs(int flightId) {
+            List<String> labels = seatMap.layout((long) flightId).getLabels();
+            List<List<String>> pairs = new ArrayList<>(BATCH);
+            for (int i = 0; i + SEATS_PER_HOLD <= labels.size() && pairs.size() < BATCH; i += SEATS_PER_HOLD) {
+                pairs.add(labels.subList(i, i + SEATS_PER_HOLD));
+            }
+            return pairs;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HoldState {
+        int flightId;
+        List<List<String>> pairs;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void freshFlight(Ctx ctx) throws Exception {
+            flightId = ctx.bench.newFlight(BATCH * SEATS_PER_HOLD);
+            pairs = ctx.seatPairs(flightId);
+            next = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ConfirmState {
+        List<Integer> bookingIds;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void heldBookings(Ctx ctx) throws Exception {
+            int flightId = ctx.bench.newFlight(BATCH * SEATS_PER_HOLD);
+            bookingIds = new ArrayList<>(BATCH);
+            for (List<String> pair : ctx.seatPairs(flightId)) {
+                bookingIds.add(ctx.booking.holdSeats(ctx.bench.userId, flightId, pair, BigDecimal.TEN).getBookingId());
+            }
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public BookingService.HoldResponse holdSeats(Ctx ctx, HoldState s) {
+        return ctx.booking.holdSeats(ctx.bench.userId, s.flightId, s.pairs.get(s.next++), BigDecimal.TEN);
+    }
+
+    @Benchmark
+    public void confirmPayment(Ctx ctx, ConfirmState s) {
+        ctx.booking.confirmPayment(s.bookingIds.get(s.next++), true, "BENCH");
+    }
+}
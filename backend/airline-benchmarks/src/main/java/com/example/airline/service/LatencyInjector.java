@@ -0,0 +1,73 @@
+package com.example.airline.service;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Makes in-memory H2 behave like a database across a network: every statement execution, commit
+ * and rollback first sleeps for a fixed round trip. Request threads then spend their time blocked
+ * on JDBC, as they do against MySQL, which is the load the thread model comparisons need.
+ */
+final class LatencyInjector implements BeanPostProcessor {
+
+    private final long millis;
+
+    LatencyInjector(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource ds)) return bean;
+        return new DelegatingDataSource(ds) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return wrap(Connection.class, super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return wrap(Connection.class, super.getConnection(username, password));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T wrap(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (delayed(method)) roundTrip();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            // statements handed out by a connection get the delay on their executions
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return wrap((Class<Object>) method.getReturnType(), result);
+            }
+            return result;
+        });
+    }
+
+    private static boolean delayed(Method method) {
+        String name = method.getName();
+        return name.startsWith("execute") || name.equals("commit") || name.equals("rollback");
+    }
+
+    private void roundTrip() {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.airline.service;
+
+import com.example.airline.repository.SeatView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repeatable paths: PNR generation (old vs new), ticket rendering, seat-map serialisation and rejected holds.
+ * Seat maps are for a 180-seat flight with a few seats held and booked.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmarks {
+
+    @Param({"db", "memory"})
+    public String inventoryMode;
+
+    private BenchContext bench;
+    private BookingService booking;
+    private TicketService tickets;
+    private SeatMapService seatMap;
+    private ObjectMapper mapper;
+    private int flightId;
+    private int bookingId;
+    private List<String> takenSeats;
+    private final AtomicLong pnrSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        bench = BenchContext.start(inventoryMode);
+        booking = bench.bean(BookingService.class);
+        tickets = bench.bean(TicketService.class);
+        seatMap = bench.bean(SeatMapService.class);
+        mapper = bench.bean(ObjectMapper.class);
+
+        flightId = bench.newFlight(180);
+        List<String> labels = seatMap.layout((long) flightId).getLabels();
+        bookingId = booking.holdSeats(bench.userId, flightId, labels.subList(0, 3), BigDecimal.TEN).getBookingId();
+        booking.confirmPayment(bookingId, true, "BENCH");
+        booking.holdSeats(bench.userId, flightId, labels.subList(3, 6), BigDecimal.TEN);
+        takenSeats = labels.subList(2, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        bench.close();
+    }
+
+    // the generator BookingService used before PnrAllocator, kept here for comparison
+    @Benchmark
+    public String pnrLegacy() {
+        String ts = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        String rnd = UUID.randomUUID().toString().replaceAll("-", "").substring(0, 4).toUpperCase();
+        String flightPart = String.valueOf(flightId % 100);
+        String tail = ts.length() > 6 ? ts.substring(ts.length() - 6) : ts;
+        return flightPart + tail + rnd;
+    }
+
+    // PnrAllocator.next() minus the range check; the masked counter keeps it from running out
+    @Benchmark
+    public String pnrAllocator() {
+        return PnrAllocator.format(pnrSequence.getAndIncrement() & (PnrAllocator.PAYLOAD_SPACE - 1));
+    }
+
+    // render from the booking rows (unpaid bookings, first download before the async render lands)
+    @Benchmark
+    public byte[] ticketPdf() {
+        return tickets.generateTicketPdfForBooking(bookingId);
+    }
+
+    // what a download of a paid ticket costs before the file is sent: store lookup + ETag
+    @Benchmark
+    public TicketService.TicketFile ticketStored() throws IOException {
+        return tickets.storedTicket(bookingId);
+    }
+
+    // what GET /api/flights/{id}/seats does: load seat projections and serialise them
+    @Benchmark
+    public byte[] seatMapFull() {
+        List<SeatView> seats = booking.getSeatsForFlight(flightId);
+        return mapper.writeValueAsBytes(seats);
+    }
+
+    // what GET /api/flights/{id}/seats/status does
+    @Benchmark
+    public byte[] seatMapCompact() {
+        return mapper.writeValueAsBytes(seatMap.statusBitmap((long) flightId));
+    }
+
+    // a hold on seats someone else already has; memory mode rejects it without a DB statement
+    @Benchmark
+    public Object holdConflict() {
+        try {
+            return booking.holdSeats(bench.userId, flightId, takenSeats, BigDecimal.TEN);
+        } catch (SeatConflictException expected) {
+            return expected;
+        }
+    }
+}
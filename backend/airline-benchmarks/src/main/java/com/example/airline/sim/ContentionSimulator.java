@@ -0,0 +1,335 @@
+package com.example.airline.sim;
+
+import com.example.airline.service.BenchContext;
+import com.example.airline.service.SeatCountService;
+import com.example.airline.service.SeatInventoryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking contention simulator for one hot flight.
+ *
+ * Boots the backend on a random port against in-memory H2 (MySQL mode), then N virtual users loop
+ * search -> seat status -> hold -> confirm / fail payment / abandon over HTTP until the time is up
+ * or the flight is sold out. Most users go for the same few "hot" seats, so holds conflict the way
+ * they do on a popular flight. Afterwards it waits for abandoned holds to be reclaimed and checks
+ * that seats, bookings, the per-class seat counters and flights.seats_available agree.
+ *
+ * Options are --name=value (see {@link Config}); any other --spring.* / --airline.* / --server.*
+ * argument is passed to the app, e.g. --airline.holds.tick-ms=250.
+ */
+public class ContentionSimulator {
+
+    static final class Config {
+        String mode = "db";         // airline.inventory.mode
+        int users = 64;
+        int seconds = 30;           // load phase; ends earlier when the flight sells out
+        int seats = 180;
+        int seatsPerHold = 2;
+        int hotSeats = 24;          // front-of-cabin seats most users want
+        double hotShare = 0.8;      // chance a user goes for a hot seat
+        double confirm = 0.6;       // chance a hold is paid
+        double fail = 0.15;         // chance the payment fails; the rest abandon the hold
+        int holdSeconds = 5;        // airline.holds.duration-seconds, short so abandoned holds come back
+        int thinkMs = 20;           // pause between looking at the seat map and acting
+        int pollMs = 50;            // reclaim monitor poll interval
+        int dbLatencyMs = 0;        // simulated round trip per statement/commit, for blocking-heavy runs
+        final List<String> appArgs = new ArrayList<>();
+
+        static Config parse(String[] args) {
+            Config c = new Config();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value: " + arg);
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "mode" -> c.mode = value;
+                    case "users" -> c.users = Integer.parseInt(value);
+                    case "seconds" -> c.seconds = Integer.parseInt(value);
+                    case "seats" -> c.seats = Integer.parseInt(value);
+                    case "seats-per-hold" -> c.seatsPerHold = Integer.parseInt(value);
+                    case "hot-seats" -> c.hotSeats = Integer.parseInt(value);
+                    case "hot-share" -> c.hotShare = Double.parseDouble(value);
+                    case "confirm" -> c.confirm = Double.parseDouble(value);
+                    case "fail" -> c.fail = Double.parseDouble(value);
+                    case "hold-seconds" -> c.holdSeconds = Integer.parseInt(value);
+                    case "think-ms" -> c.thinkMs = Integer.parseInt(value);
+                    case "poll-ms" -> c.pollMs = Integer.parseInt(value);
+                    case "db-latency-ms" -> c.dbLatencyMs = Integer.parseInt(value);
+                    default -> {
+                        if (!name.startsWith("spring.") && !name.startsWith("airline.") && !name.startsWith("server.")) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        c.appArgs.add(arg);
+                    }
+                }
+            }
+            if (c.confirm + c.fail > 1.0) throw new IllegalArgumentException("confirm + fail must be <= 1");
+            return c;
+        }
+    }
+
+    private final Config cfg;
+    private final BenchContext app;
+    private final SeatMapClient client;
+    private final int flightId;
+    private final List<String> labels;
+    private final ReclaimMonitor reclaim;
+
+    private final Samples searchLatency = new Samples();
+    private final Samples seatMapLatency = new Samples();
+    private final Samples holdLatency = new Samples();
+    private final Samples payLatency = new Samples();
+    private final AtomicLong holdsOk = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong confirmedSeats = new AtomicLong();
+    private volatile boolean soldOut;
+
+    ContentionSimulator(Config cfg, BenchContext app, HttpClient http) throws Exception {
+        this.cfg = cfg;
+        this.app = app;
+        this.client = new SeatMapClient(http, app.bean(ObjectMapper.class), app.port());
+        this.flightId = app.newFlight(cfg.seats);
+        this.labels = client.labels(flightId);
+        this.reclaim = new ReclaimMonitor(client, flightId, cfg.pollMs);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config cfg = Config.parse(args);
+        List<String> appArgs = new ArrayList<>(cfg.appArgs);
+        appArgs.add(0, "--airline.holds.duration-seconds=" + cfg.holdSeconds);
+        ExecutorService users = Executors.newFixedThreadPool(cfg.users);
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        int exit;
+        try (BenchContext app = BenchContext.startServer(cfg.mode, cfg.dbLatencyMs, appArgs.toArray(new String[0]))) {
+            exit = new ContentionSimulator(cfg, app, http).run(users);
+        } finally {
+            users.shutdownNow();
+        }
+        System.exit(exit);
+    }
+
+    int run(ExecutorService users) throws Exception {
+        Thread monitor = new Thread(reclaim, "reclaim-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(cfg.seconds);
+        for (int i = 0; i < cfg.users; i++) {
+            users.execute(() -> userLoop(deadline));
+        }
+        users.shutdown();
+        users.awaitTermination(cfg.seconds + 60L, TimeUnit.SECONDS);
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+        // give every abandoned hold its expiry plus a few wheel ticks to come back
+        long waitUntil = Math.max(System.currentTimeMillis(), reclaim.latestExpiry()) + 10_000;
+        while (reclaim.pending() > 0 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(cfg.pollMs);
+        }
+        reclaim.stop();
+
+        report(loadSeconds);
+        return checkConsistency() ? 0 : 1;
+    }
+
+    private void userLoop(long deadline) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String date = BenchContext.departure().toLocalDate().toString();
+        while (System.nanoTime() < deadline && !soldOut) {
+            try {
+                timed(searchLatency, () -> client.get("/flights/search?origin=DEL&destination=BOM&date=" + date));
+
+                HttpResponse<String> status = timed(seatMapLatency, () -> client.get("/flights/" + flightId + "/seats/status"));
+                int[] pick = pickSeats(client.statuses(status), rnd);
+                if (pick == null) continue;
+                think(rnd);
+
+                List<String> wanted = new ArrayList<>(pick.length);
+                for (int s : pick) wanted.add(labels.get(s));
+                HttpResponse<String> hold = timed(holdLatency, () -> client.post("/book/hold", Map.of(
+                        "userId", app.userId(), "flightId", flightId, "seats", wanted, "amount", 5000)));
+                if (hold.statusCode() == 409) {
+                    conflicts.incrementAndGet();
+                    continue;
+                }
+                if (hold.statusCode() != 200) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                holdsOk.incrementAndGet();
+                reclaim.held(pick, System.currentTimeMillis());
+                JsonNode held = client.json(hold);
+                think(rnd);
+
+                double outcome = rnd.nextDouble();
+                if (outcome < cfg.confirm + cfg.fail) {
+                    boolean pay = outcome < cfg.confirm;
+                    HttpResponse<String> resp = timed(payLatency, () -> client.post("/payment/confirm",
+                            Map.of("bookingId", held.get("bookingId").asInt(), "success", pay)));
+                    if (resp.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    } else if (pay) {
+                        confirmed.incrementAndGet();
+                        confirmedSeats.addAndGet(pick.length);
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } else {
+                    abandoned.incrementAndGet();
+                    LocalDateTime expires = LocalDateTime.parse(held.get("expiresAt").asString());
+                    reclaim.abandoned(pick, expires.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Seats to try for, based on a possibly stale status bitmap: with probability hotShare from
+     * the hot block, otherwise (or when the hot block is taken) from anywhere. Null when nothing is free.
+     */
+    private int[] pickSeats(byte[] statuses, ThreadLocalRandom rnd) throws InterruptedException {
+        List<Integer> hot = new ArrayList<>();
+        List<Integer> any = new ArrayList<>();
+        boolean held = false;
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == 0) {
+                any.add(i);
+                if (i < cfg.hotSeats) hot.add(i);
+            } else if (statuses[i] == 1) {
+                held = true;
+            }
+        }
+        if (any.isEmpty()) {
+            // everything booked means done; held seats may still come back
+            if (!held) soldOut = true;
+            else Thread.sleep(cfg.pollMs);
+            return null;
+        }
+        List<Integer> pool = hot.size() >= cfg.seatsPerHold && rnd.nextDouble() < cfg.hotShare ? hot : any;
+        int n = Math.min(cfg.seatsPerHold, pool.size());
+        int[] pick = new int[n];
+        for (int i = 0; i < n; i++) {
+            pick[i] = pool.remove(rnd.nextInt(pool.size()));
+        }
+        return pick;
+    }
+
+    private void think(ThreadLocalRandom rnd) throws InterruptedException {
+        if (cfg.thinkMs > 0) Thread.sleep(rnd.nextInt(cfg.thinkMs + 1));
+    }
+
+    private interface Call {
+        HttpResponse<String> send() throws Exception;
+    }
+
+    private static HttpResponse<String> timed(Samples samples, Call call) throws Exception {
+        long t0 = System.nanoTime();
+        try {
+            return call.send();
+        } finally {
+            samples.add((System.nanoTime() - t0) / 1000);
+        }
+    }
+
+    private void report(double loadSeconds) {
+        long attempts = holdsOk.get() + conflicts.get();
+        System.out.println();
+        System.out.printf("mode=%s users=%d seats=%d hot=%d (%.0f%%) seats/hold=%d hold=%ds db-latency=%dms%n",
+                cfg.mode, cfg.users, cfg.seats, cfg.hotSeats, cfg.hotShare * 100, cfg.seatsPerHold, cfg.holdSeconds,
+                cfg.dbLatencyMs);
+        System.out.printf("load phase     %.1fs%s%n", loadSeconds, soldOut ? " (sold out)" : "");
+        System.out.printf("holds          %d ok, %d conflicts (409 rate %.1f%%), %d errors%n",
+                holdsOk.get(), conflicts.get(), attempts == 0 ? 0.0 : 100.0 * conflicts.get() / attempts, errors.get());
+        System.out.printf("throughput     %.1f holds/s ok, %.1f hold attempts/s%n",
+                holdsOk.get() / loadSeconds, attempts / loadSeconds);
+        System.out.printf("outcomes       %d confirmed, %d payment failed, %d abandoned%n",
+                confirmed.get(), failed.get(), abandoned.get());
+        System.out.println("latency search   " + searchLatency.summary());
+        System.out.println("latency seatmap  " + seatMapLatency.summary());
+        System.out.println("latency hold     " + holdLatency.summary());
+        System.out.println("latency payment  " + payLatency.summary());
+        System.out.println("reclaim after expiry " + reclaim.reclaimTimes().summary()
+                + (reclaim.pending() > 0 ? "  NOT RECLAIMED=" + reclaim.pending() : ""));
+    }
+
+    private boolean checkConsistency() {
+        SeatInventoryService inventory = app.bean(SeatInventoryService.class);
+        if (inventory.isEnabled()) inventory.flush();
+        app.bean(SeatCountService.class).flush();
+
+        JdbcTemplate jdbc = app.jdbc();
+        Map<String, Long> byStatus = new HashMap<>();
+        jdbc.query("SELECT status, COUNT(*) FROM seats WHERE flight_id = ? GROUP BY status",
+                rs -> { byStatus.put(rs.getString(1), rs.getLong(2)); }, flightId);
+        long booked = byStatus.getOrDefault("BOOKED", 0L);
+        long held = byStatus.getOrDefault("HELD", 0L);
+        long paidSeats = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM booking_seats bs JOIN bookings b ON b.id = bs.booking_id " +
+                "WHERE b.flight_id = ? AND b.payment_status = 'PAID'", Long.class, flightId);
+        long orphans = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM seats s WHERE s.flight_id = ? AND s.status = 'BOOKED' AND NOT EXISTS (" +
+                "SELECT 1 FROM bookings b JOIN booking_seats bs ON bs.booking_id = b.id " +
+                "WHERE b.id = s.booking_id AND bs.seat_label = s.seat_label AND b.payment_status = 'PAID')",
+                Long.class, flightId);
+        long doubleSold = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT bs.seat_label FROM booking_seats bs JOIN bookings b ON b.id = bs.booking_id " +
+                "WHERE b.flight_id = ? AND b.payment_status = 'PAID' GROUP BY bs.seat_label HAVING COUNT(*) > 1) d",
+                Long.class, flightId);
+        long counterDrift = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM flight_seat_counts c WHERE c.flight_id = ? AND (" +
+                "c.available <> (SELECT COUNT(*) FROM seats s WHERE s.flight_id = c.flight_id AND s.seat_class = c.seat_class AND s.status = 'AVAILABLE') OR " +
+                "c.held <> (SELECT COUNT(*) FROM seats s WHERE s.flight_id = c.flight_id AND s.seat_class = c.seat_class AND s.status = 'HELD') OR " +
+                "c.booked <> (SELECT COUNT(*) FROM seats s WHERE s.flight_id = c.flight_id AND s.seat_class = c.seat_class AND s.status = 'BOOKED'))",
+                Long.class, flightId);
+        Map<String, Object> flight = jdbc.queryForMap("SELECT seats_total, seats_available FROM flights WHERE id = ?", flightId);
+        long total = ((Number) flight.get("seats_total")).longValue();
+        long available = ((Number) flight.get("seats_available")).longValue();
+
+        System.out.println();
+        System.out.println("consistency");
+        boolean ok = check("no seat left HELD", held == 0, "HELD=" + held);
+        ok &= check("BOOKED seats = seats of PAID bookings", booked == paidSeats, booked + " vs " + paidSeats);
+        ok &= check("BOOKED seats = seats the users paid for", booked == confirmedSeats.get(), booked + " vs " + confirmedSeats.get());
+        ok &= check("every BOOKED seat belongs to its PAID booking", orphans == 0, "orphans=" + orphans);
+        ok &= check("no seat in two PAID bookings", doubleSold == 0, "double-sold=" + doubleSold);
+        ok &= check("flights.seats_available = total - BOOKED", available == total - booked,
+                available + " vs " + (total - booked));
+        ok &= check("per-class seat counters = seats by class", counterDrift == 0, "classes off=" + counterDrift);
+        return ok;
+    }
+
+    private static boolean check(String name, boolean passed, String detail) {
+        System.out.printf("  %-48s %s%n", name, passed ? "OK" : "MISMATCH (" + detail + ")");
+        return passed;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.airline.sim;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Measures how long abandoned holds stay unavailable after they expire.
+ * A seat counts as reclaimed the first time it is seen not HELD after the hold was abandoned:
+ * either in a polled status bitmap or because another user managed to hold it.
+ */
+final class ReclaimMonitor implements Runnable {
+
+    private final SeatMapClient client;
+    private final int flightId;
+    private final int pollMs;
+    private final List<Abandoned> open = new ArrayList<>();
+    private final Samples reclaimMicros = new Samples();
+    private volatile boolean running = true;
+
+    ReclaimMonitor(SeatMapClient client, int flightId, int pollMs) {
+        this.client = client;
+        this.flightId = flightId;
+        this.pollMs = pollMs;
+    }
+
+    synchronized void abandoned(int[] seats, long expiresAtMillis) {
+        open.add(new Abandoned(seats.clone(), expiresAtMillis, System.currentTimeMillis()));
+    }
+
+    // a successful hold proves its seats were free again by the time it returned
+    synchronized void held(int[] seats, long atMillis) {
+        for (Abandoned a : open) {
+            for (int i = 0; i < a.seats.length; i++) {
+                for (int s : seats) {
+                    if (a.seats[i] == s && a.reclaimedAt[i] == 0) a.reclaimedAt[i] = atMillis;
+                }
+            }
+        }
+        completeReclaimed();
+    }
+
+    // only bitmaps requested after the hold was abandoned say anything about it
+    private synchronized void observed(byte[] statuses, long requestedAt, long atMillis) {
+        for (Abandoned a : open) {
+            if (a.abandonedAt > requestedAt) continue;
+            for (int i = 0; i < a.seats.length; i++) {
+                if (a.reclaimedAt[i] == 0 && statuses[a.seats[i]] != 1) a.reclaimedAt[i] = atMillis;
+            }
+        }
+        completeReclaimed();
+    }
+
+    private void completeReclaimed() {
+        for (Iterator<Abandoned> it = open.iterator(); it.hasNext(); ) {
+            Abandoned a = it.next();
+            long last = 0;
+            for (long t : a.reclaimedAt) {
+                if (t == 0) { last = -1; break; }
+                last = Math.max(last, t);
+            }
+            if (last < 0) continue;
+            reclaimMicros.add(Math.max(0, last - a.expiresAtMillis) * 1000);
+            it.remove();
+        }
+    }
+
+    synchronized int pending() {
+        return open.size();
+    }
+
+    synchronized long latestExpiry() {
+        long max = 0;
+        for (Abandoned a : open) max = Math.max(max, a.expiresAtMillis);
+        return max;
+    }
+
+    Samples reclaimTimes() {
+        return reclaimMicros;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                if (pending() > 0) {
+                    long requestedAt = System.currentTimeMillis();
+                    HttpResponse<String> resp = client.get("/flights/" + flightId + "/seats/status");
+                    if (resp.statusCode() == 200) observed(client.statuses(resp), requestedAt, System.currentTimeMillis());
+                }
+                Thread.sleep(pollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // keep polling; a failed poll only delays the observation
+            }
+        }
+    }
+
+    private static final class Abandoned {
+        final int[] seats;
+        final long expiresAtMillis;
+        final long abandonedAt;
+        final long[] reclaimedAt;
+
+        Abandoned(int[] seats, long expiresAtMillis, long abandonedAt) {
+            this.seats = seats;
+            this.expiresAtMillis = expiresAtMillis;
+            this.abandonedAt = abandonedAt;
+            this.reclaimedAt = new long[seats.length];
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.airline.sim;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples in microseconds; percentiles are exact (sorted on read).
+ */
+final class Samples {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    synchronized void add(long micros) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = micros;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    synchronized long percentile(double p) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+
+    String summary() {
+        return String.format("n=%-7d p50=%8.2fms  p99=%8.2fms  max=%8.2fms",
+                count(), percentile(50) / 1000.0, percentile(99) / 1000.0, percentile(100) / 1000.0);
+    }
+}
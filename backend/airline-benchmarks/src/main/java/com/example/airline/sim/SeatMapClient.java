@@ -0,0 +1,68 @@
+package com.example.airline.sim;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP calls the simulated users make, against a running backend.
+ */
+final class SeatMapClient {
+
+    private final HttpClient http;
+    private final ObjectMapper mapper;
+    private final String base;
+
+    SeatMapClient(HttpClient http, ObjectMapper mapper, int port) {
+        this.http = http;
+        this.mapper = mapper;
+        this.base = "http://localhost:" + port + "/api";
+    }
+
+    HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+        return http.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    HttpResponse<String> post(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    JsonNode json(HttpResponse<String> resp) {
+        return mapper.readTree(resp.body());
+    }
+
+    List<String> labels(int flightId) throws IOException, InterruptedException {
+        JsonNode layout = json(get("/flights/" + flightId + "/seats/layout"));
+        List<String> labels = new ArrayList<>();
+        for (JsonNode n : layout.get("labels")) labels.add(n.asString());
+        return labels;
+    }
+
+    /**
+     * Decode a /seats/status body: one status code per seat in layout order (0 available, 1 held, 2 booked).
+     */
+    byte[] statuses(HttpResponse<String> resp) {
+        JsonNode node = json(resp);
+        int seats = node.get("seats").asInt();
+        byte[] bits = Base64.getDecoder().decode(node.get("bitmap").asString());
+        byte[] out = new byte[seats];
+        for (int i = 0; i < seats; i++) {
+            out[i] = (byte) ((bits[i >> 2] >> ((i & 3) * 2)) & 0b11);
+        }
+        return out;
+    }
+}
@@ -19,11 +19,37 @@ export default function App() {
 
   useEffect(() => { fetchAll(); }, []);
 
+  // Live seat updates for the selected flight (server-sent deltas instead of polling)
+  useEffect(() => {
+    if (!selectedFlight) return undefined;
+    const source = new EventSource(`http://localhost:8080/api/flights/${selectedFlight.id}/seats/stream`);
+    // newest version applied; an event at or below it is old news and must not undo a newer one
+    let seen = -1;
+    source.addEventListener('hello', (e) => { seen = Math.max(seen, JSON.parse(e.data).version); });
+    source.addEventListener('seats', (e) => {
+      const { version, deltas } = JSON.parse(e.data);
+      if (version <= seen) return;
+      seen = version;
+      const next = {};
+      deltas.forEach(d => { next[d.label] = d.to; });
+      setSeatMap(prev => prev.map(s => (next[s.seatLabel] ? { ...s, status: next[s.seatLabel] } : s)));
+    });
+    source.addEventListener('resync', (e) => {
+      const { version } = JSON.parse(e.data);
+      if (version <= seen) return;
+      seen = version;
+      loadSeatMap(selectedFlight);
+    });
+    return () => source.close();
+  }, [selectedFlight]);
+
   async function fetchAll() {
     setLoading(true);
     setMessage('');
     try {
-      const res = await fetch('http://localhost:8080/api/flights');
+      // credentials on every API call: after a hold or payment the server's cookie pins this
+      // client's reads to the primary database, so it never sees its own seats as free
+      const res = await fetch('http://localhost:8080/api/flights', { credentials: 'include' });
       const data = await res.json();
       setFlights(data);
     } catch (err) {
@@ -37,7 +63,7 @@ export default function App() {
     setMessage('');
     try {
       const url = `http://localhost:8080/api/flights/search?origin=${encodeURIComponent(origin)}&destination=${encodeURIComponent(destination)}&date=${encodeURIComponent(date)}`;
-      const res = await fetch(url);
+      const res = await fetch(url, { credentials: 'include' });
       if (!res.ok) throw new Error(await res.text());
       const data = await res.json();
       setFlights(data);
@@ -51,7 +77,7 @@ export default function App() {
     setSeatMap([]);
     if (!flight) return;
     try {
-      const res = await fetch(`http://localhost:8080/api/flights/${flight.id}/seats`);
+      const res = await fetch(`http://localhost:8080/api/flights/${flight.id}/seats`, { credentials: 'include' });
       if (!res.ok) throw new Error('Seat map fetch failed');
       const map = await res.json();
       setSeatMap(map);
@@ -97,6 +123,7 @@ export default function App() {
 
       const res = await fetch('http://localhost:8080/api/book/hold', {
         method: 'POST',
+        credentials: 'include',
         headers: { 'Content-Type': 'application/json' },
         body: JSON.stringify(body)
       });
@@ -126,6 +153,7 @@ export default function App() {
     try {
       const res = await fetch('http://localhost:8080/api/payment/confirm', {
         method: 'POST',
+        credentials: 'include',
         headers: { 'Content-Type': 'application/json' },
         body: JSON.stringify({ bookingId: currentBooking.bookingId, success })
       });